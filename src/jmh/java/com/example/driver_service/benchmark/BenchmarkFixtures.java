@@ -0,0 +1,78 @@
+package com.example.driver_service.benchmark;
+
+import com.example.driver_service.ENUM.LogLevel;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.LogProperties;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process stand-ins for Kafka and Redis so benchmarks measure only service code.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * KafkaTemplate backed by a {@link MockProducer} that completes sends immediately.
+     */
+    static KafkaTemplate<String, String> inMemoryKafkaTemplate(MockProducer<String, String> producer) {
+        return new KafkaTemplate<>(() -> producer);
+    }
+
+    static MockProducer<String, String> mockProducer() {
+        // KafkaTemplate closes non-shared producers after each send, keep this one open like the real factory does
+        return new MockProducer<>(true, new StringSerializer(), new StringSerializer()) {
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+    }
+
+    static DriverLogShipper logShipper(LogLevel minLevel) {
+        LogProperties properties = new LogProperties();
+        properties.setMinLevel(minLevel);
+        DriverLogShipper shipper = new DriverLogShipper(inMemoryKafkaTemplate(mockProducer()), properties);
+        shipper.start();
+        return shipper;
+    }
+
+    /**
+     * RedisTemplate whose pipelined geo searches answer with {@code firstRegionResults} for the first
+     * region queried and nothing for the others, as if all drivers sat in one region.
+     */
+    static RedisTemplate<String, String> redisTemplate(GeoResults<GeoLocation<byte[]>> firstRegionResults) {
+        return new RedisTemplate<>() {
+            @Override
+            public List<Object> executePipelined(RedisCallback<?> action) {
+                List<Object> replies = new ArrayList<>();
+                RedisGeoCommands geoCommands = (RedisGeoCommands) Proxy.newProxyInstance(
+                        BenchmarkFixtures.class.getClassLoader(),
+                        new Class<?>[]{RedisGeoCommands.class},
+                        (proxy, method, args) -> {
+                            replies.add(replies.isEmpty() ? firstRegionResults : new GeoResults<>(List.of()));
+                            return null;
+                        });
+                RedisConnection connection = (RedisConnection) Proxy.newProxyInstance(
+                        BenchmarkFixtures.class.getClassLoader(),
+                        new Class<?>[]{RedisConnection.class},
+                        (proxy, method, args) -> "geoCommands".equals(method.getName()) ? geoCommands : null);
+                action.doInRedis(connection);
+                return replies;
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.driver_service.benchmark;
+
+import com.example.driver_service.event.CreateTripEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CreateTripEventBenchmark {
+    private static final String MESSAGE = "{\"tripId\":\"trip456\",\"userId\":\"user123\","
+            + "\"origin\":\"District 1\",\"destination\":\"District 7\","
+            + "\"latitude\":\"10.762622\",\"longitude\":\"106.660172\"}";
+    private static final String NUMERIC_MESSAGE = "{\"tripId\":\"trip456\",\"userId\":\"user123\","
+            + "\"origin\":\"District 1\",\"destination\":\"District 7\","
+            + "\"latitude\":10.762622,\"longitude\":106.660172}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader eventReader = objectMapper.readerFor(CreateTripEvent.class);
+
+    @Benchmark
+    public CreateTripEvent readValueWithSharedMapper() throws Exception {
+        return objectMapper.readValue(MESSAGE, CreateTripEvent.class);
+    }
+
+    @Benchmark
+    public CreateTripEvent readValueWithObjectReader() throws Exception {
+        return eventReader.readValue(MESSAGE);
+    }
+
+    @Benchmark
+    public CreateTripEvent readNumericCoordinatesWithObjectReader() throws Exception {
+        return eventReader.readValue(NUMERIC_MESSAGE);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.driver_service.benchmark;
+
+import com.example.driver_service.ENUM.Status;
+import com.example.driver_service.config.MongoIndexConfig;
+import com.example.driver_service.model.Driver;
+import com.example.driver_service.repository.DriverRepository;
+import com.example.driver_service.repository.DriverRepositoryCustomImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver lookups by driverId against a real MongoDB, with and without the unique driverId index,
+ * loading the whole document or only the projected profile fields the service reads. Unlike the
+ * other benchmarks this one needs a server: {@code -Dbenchmark.mongo.uri=mongodb://localhost:27017}
+ * (the default). The {@code driver_service_benchmark} database is seeded once and reused while the
+ * size matches. No results have been recorded for it yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class DriverLookupBenchmark {
+    private static final String DATABASE = "driver_service_benchmark";
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    @Param({"1000000"})
+    public int drivers;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private DriverRepository driverRepository;
+
+    @Setup
+    public void setUp() {
+        mongoClient = MongoClients.create(System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(mongoClient, DATABASE);
+        if (mongoTemplate.getCollection(mongoTemplate.getCollectionName(Driver.class)).estimatedDocumentCount() != drivers) {
+            seed(mongoTemplate);
+        }
+
+        IndexOperations indexOperations = mongoTemplate.indexOps(Driver.class);
+        if (indexed) {
+            MongoIndexConfig.ensureIndexes(mongoTemplate, Driver.class);
+        } else {
+            for (IndexInfo index : indexOperations.getIndexInfo()) {
+                if (!"_id_".equals(index.getName())) {
+                    indexOperations.dropIndex(index.getName());
+                }
+            }
+        }
+
+        driverRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(DriverRepository.class,
+                RepositoryFragments.just(new DriverRepositoryCustomImpl(mongoTemplate)));
+    }
+
+    private void seed(MongoTemplate mongoTemplate) {
+        mongoTemplate.dropCollection(Driver.class);
+        List<Driver> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < drivers; i++) {
+            Driver driver = new Driver();
+            driver.setDriverId("driver" + i);
+            driver.setLatitude(10.762622 + (i % 1000) * 0.0001);
+            driver.setLongitude(106.660172 + (i / 1000 % 1000) * 0.0001);
+            driver.setStatus(i % 2 == 0 ? Status.ON : Status.OFF);
+            driver.setDetailLocation("District " + (i % 24 + 1) + ", Ho Chi Minh City");
+            batch.add(driver);
+            if (batch.size() == INSERT_BATCH_SIZE || i == drivers - 1) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Driver.class).insert(batch).execute();
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mongoClient.close();
+    }
+
+    // Baseline: the whole document, which the service no longer reads
+    @Benchmark
+    public Driver findDocumentByDriverId() {
+        return mongoTemplate.findOne(Query.query(Criteria.where("driverId").is(randomDriverId())), Driver.class);
+    }
+
+    @Benchmark
+    public Driver findProfileByDriverId() {
+        return driverRepository.findProfileByDriverId(randomDriverId());
+    }
+
+    @Benchmark
+    public List<Driver> findProfilesByDriverIdIn() {
+        return driverRepository.findProfilesByDriverIdIn(List.of(randomDriverId(), randomDriverId(), randomDriverId(),
+                randomDriverId(), randomDriverId()));
+    }
+
+    private String randomDriverId() {
+        return "driver" + ThreadLocalRandom.current().nextInt(drivers);
+    }
+}
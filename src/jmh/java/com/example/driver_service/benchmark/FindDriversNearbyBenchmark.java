@@ -0,0 +1,85 @@
+package com.example.driver_service.benchmark;
+
+import com.example.driver_service.ENUM.LogLevel;
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import com.example.driver_service.service.DriverServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindDriversNearbyBenchmark {
+    private static final double LATITUDE = 10.762622;
+    private static final double LONGITUDE = 106.660172;
+
+    @Param({"10", "100", "1000"})
+    public int drivers;
+
+    @Param({"redis", "memory"})
+    public String engine;
+
+    private DriverServiceImpl driverService;
+    private DriverLogShipper driverLog;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<GeoResult<GeoLocation<byte[]>>> content = new ArrayList<>(drivers);
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setEngine(engine);
+        // Measures the search itself; repeated queries from one center would otherwise all be cache hits
+        geoProperties.setNearbyCacheTtlMs(0);
+        DriverGridIndex gridIndex = new DriverGridIndex(geoProperties);
+        for (int i = 0; i < drivers; i++) {
+            double lat = LATITUDE + (random.nextDouble() - 0.5) * 0.1;
+            double lon = LONGITUDE + (random.nextDouble() - 0.5) * 0.1;
+            content.add(new GeoResult<>(new GeoLocation<>(("driver" + i).getBytes(StandardCharsets.UTF_8), new Point(lon, lat)),
+                    new Distance(random.nextDouble() * 5, Metrics.KILOMETERS)));
+            gridIndex.update("driver" + i, lat, lon);
+        }
+
+        driverLog = BenchmarkFixtures.logShipper(LogLevel.ERROR);
+        driverService = new DriverServiceImpl(
+                null,
+                null,
+                null,
+                new DriverLocationRepository(BenchmarkFixtures.redisTemplate(new GeoResults<>(content)), geoProperties),
+                geoProperties,
+                gridIndex,
+                driverLog,
+                null,
+                new LocationWriteFilter(geoProperties),
+                null,
+                null,
+                new NearbyResultCache(geoProperties),
+                null
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        driverLog.shutdown();
+    }
+
+    @Benchmark
+    public GeoResults<String> findDriversNearby() {
+        return driverService.findDriversNearby(LATITUDE, LONGITUDE, 10.0);
+    }
+}
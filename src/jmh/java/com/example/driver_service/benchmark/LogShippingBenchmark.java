@@ -0,0 +1,53 @@
+package com.example.driver_service.benchmark;
+
+import com.example.driver_service.ENUM.LogLevel;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogShippingBenchmark {
+    private MockProducer<String, String> producer;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private DriverLogShipper shipper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        producer = BenchmarkFixtures.mockProducer();
+        kafkaTemplate = BenchmarkFixtures.inMemoryKafkaTemplate(producer);
+        shipper = BenchmarkFixtures.logShipper(LogLevel.DEBUG);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearProducerHistory() {
+        producer.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        shipper.shutdown();
+    }
+
+    /**
+     * The original logToKafka: new ObjectMapper, String.format and a synchronous send per call.
+     */
+    @Benchmark
+    public void legacyLogToKafka() {
+        String message = "updateDriverLocation called for driverId: driver123";
+        String jsonLog = String.format("{\"message\":%s, \"service_name\":\"driver-service\", \"timestamp\":\"%s\"}",
+                new ObjectMapper().valueToTree(message).toString(),
+                java.time.Instant.now().toString());
+        kafkaTemplate.send("driver-logs", jsonLog);
+    }
+
+    @Benchmark
+    public void asyncShipperEnqueue() {
+        shipper.debug("updateDriverLocation called for driverId: driver123");
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.driver_service.benchmark;
+
+import com.example.driver_service.config.SecurityContextFilter;
+import com.example.driver_service.properties.JwtProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SecurityContextFilterBenchmark {
+    private static final String SECRET = "MySuperSecretKey12345678901234567890";
+
+    private SecurityContextFilter filter;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (req, res) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        ReflectionTestUtils.setField(jwtProperties, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtProperties, "jwtHeader", "Authorization");
+        filter = new SecurityContextFilter(jwtProperties);
+
+        String token = Jwts.builder()
+                .claim("userId", "driver123")
+                .claim("authorities", "ROLE_DRIVER")
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(8)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+        request = new MockHttpServletRequest("PUT", "/api/drivers/driver123/location");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object authenticateRequest() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        // OncePerRequestFilter marks the request as filtered, reset for the next invocation
+        request.removeAttribute(filter.getClass().getName() + ".FILTERED");
+        return authentication;
+    }
+}
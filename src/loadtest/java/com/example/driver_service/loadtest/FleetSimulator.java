@@ -0,0 +1,402 @@
+package com.example.driver_service.loadtest;
+
+import com.example.driver_service.ENUM.LogLevel;
+import com.example.driver_service.event.CreateTripEvent;
+import com.example.driver_service.eventListener.CreateTripListener;
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.history.LocationHistoryWriter;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.DispatchProperties;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.properties.HeatmapProperties;
+import com.example.driver_service.properties.HistoryProperties;
+import com.example.driver_service.properties.LogProperties;
+import com.example.driver_service.service.DriverService;
+import com.example.driver_service.service.DriverServiceImpl;
+import com.example.driver_service.service.HeatmapRecorder;
+import com.example.driver_service.websocket.TripOfferPublisher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates a fleet of drivers moving along random paths while trips are published to
+ * {@code trip_create_wait_driver}, and reports throughput, p50/p99 latency and consumer lag.
+ * <p>
+ * Location pings go straight through {@link DriverServiceImpl}; trips go through an embedded Kafka
+ * broker to the real {@link CreateTripListener}. Redis is replaced by {@link InProcessRedis}.
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--drivers=20000 --trip-rate=500 --duration-seconds=60"
+ * </pre>
+ * Options (defaults in brackets): {@code --drivers} [5000], {@code --ping-interval-ms} [1000],
+ * {@code --ping-threads} [4], {@code --trip-rate} per second [100], {@code --duration-seconds} [30],
+ * {@code --partitions} [3], {@code --concurrency} [3], {@code --engine} redis|memory [redis],
+ * {@code --redis-rtt-micros} [0], {@code --nearby-cache-ttl-ms} [1000, 0 disables].
+ */
+public class FleetSimulator {
+    private static final String TRIP_TOPIC = "trip_create_wait_driver";
+    // Simulated drivers start within this many degrees of the city center
+    private static final double CENTER_LATITUDE = 10.7769;
+    private static final double CENTER_LONGITUDE = 106.7009;
+    private static final double SPREAD_DEGREES = 0.1;
+    private static final double SPEED_METERS_PER_SECOND = 10.0;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final Map<String, String> options;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Timer pingLatency = latencyTimer("loadtest.ping");
+    private final Timer dispatchLatency = latencyTimer("loadtest.dispatch");
+    private final LongAdder pings = new LongAdder();
+    private final LongAdder pingErrors = new LongAdder();
+    private final LongAdder tripsPublished = new LongAdder();
+    private final LongAdder tripsDispatched = new LongAdder();
+    private final LongAdder dispatchErrors = new LongAdder();
+    private final LongAdder offers = new LongAdder();
+    private final LongAccumulator maxLag = new LongAccumulator(Math::max, 0);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    FleetSimulator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new FleetSimulator(options).run();
+    }
+
+    void run() throws Exception {
+        int drivers = intOption("drivers", 5000);
+        int pingIntervalMs = intOption("ping-interval-ms", 1000);
+        int pingThreads = intOption("ping-threads", 4);
+        int tripRate = intOption("trip-rate", 100);
+        int durationSeconds = intOption("duration-seconds", 30);
+        int partitions = intOption("partitions", 3);
+        int concurrency = intOption("concurrency", 3);
+
+        EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, partitions, TRIP_TOPIC);
+        broker.afterPropertiesSet();
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.LINGER_MS_CONFIG, 5));
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setEngine(options.getOrDefault("engine", GeoProperties.ENGINE_REDIS));
+        geoProperties.setNearbyCacheTtlMs(intOption("nearby-cache-ttl-ms", (int) geoProperties.getNearbyCacheTtlMs()));
+        InProcessRedis redis = new InProcessRedis(intOption("redis-rtt-micros", 0));
+        LogProperties logProperties = new LogProperties();
+        logProperties.setMinLevel(LogLevel.ERROR);
+        DriverLogShipper driverLog = new DriverLogShipper(kafkaTemplate, logProperties);
+        driverLog.start();
+        // The heatmap lives in shared Redis and is left out of the in-process stand-in
+        HeatmapProperties heatmapProperties = new HeatmapProperties();
+        heatmapProperties.setEnabled(false);
+        HistoryProperties historyProperties = new HistoryProperties();
+        historyProperties.setEnabled(false);
+        LocationHistoryWriter historyWriter = new LocationHistoryWriter(null, historyProperties);
+        historyWriter.start();
+        DriverService driverService = new DriverServiceImpl(
+                null,
+                null,
+                kafkaTemplate,
+                redis.driverLocationRepository(geoProperties),
+                geoProperties,
+                new DriverGridIndex(geoProperties),
+                driverLog,
+                redis.driverStatusRepository(),
+                new LocationWriteFilter(geoProperties),
+                historyWriter,
+                null,
+                new NearbyResultCache(geoProperties),
+                new HeatmapRecorder(null, heatmapProperties, driverLog)
+        );
+
+        ConcurrentMessageListenerContainer<String, String> container =
+                tripListenerContainer(broker.getBrokersAsString(), driverService, concurrency);
+
+        SimulatedDriver[] fleet = new SimulatedDriver[drivers];
+        for (int i = 0; i < drivers; i++) {
+            fleet[i] = new SimulatedDriver("sim-driver-" + i);
+            driverService.updateDriverLocation(fleet[i].id, fleet[i].latitude, fleet[i].longitude);
+        }
+        System.out.printf("Fleet of %d drivers (%s engine), %d trips/s for %ds%n",
+                drivers, geoProperties.getEngine(), tripRate, durationSeconds);
+
+        container.start();
+        // Wait for the consumer group to settle so the rebalance is not counted as dispatch latency
+        ContainerTestUtils.waitForAssignment(container, partitions);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < pingThreads; t++) {
+            int slice = t;
+            threads.add(start("ping-" + t, () -> pingLoop(driverService, fleet, slice, pingThreads, pingIntervalMs)));
+        }
+        threads.add(start("trip-producer", () -> tripLoop(kafkaTemplate, fleet, tripRate)));
+
+        long startNanos = System.nanoTime();
+        long previousPings = 0;
+        long previousTrips = 0;
+        for (int second = 1; second <= durationSeconds; second++) {
+            Thread.sleep(1000);
+            long lag = tripsPublished.sum() - tripsDispatched.sum();
+            maxLag.accumulate(lag);
+            System.out.printf("t=%3ds  pings/s=%8d  trips/s=%6d  lag=%6d%n", second,
+                    pings.sum() - previousPings, tripsDispatched.sum() - previousTrips, lag);
+            previousPings = pings.sum();
+            previousTrips = tripsDispatched.sum();
+        }
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        // Let the consumer drain what was already published so the final lag reflects the backlog left over
+        long drainDeadline = System.currentTimeMillis() + 10_000;
+        while (tripsDispatched.sum() < tripsPublished.sum() && System.currentTimeMillis() < drainDeadline) {
+            Thread.sleep(100);
+        }
+        report(elapsedSeconds);
+
+        container.stop();
+        driverLog.shutdown();
+        historyWriter.shutdown();
+        producerFactory.destroy();
+        broker.destroy();
+    }
+
+    private ConcurrentMessageListenerContainer<String, String> tripListenerContainer(
+            String brokers, DriverService driverService, int concurrency) {
+        TripOfferPublisher publisher = new TripOfferPublisher(null, null) {
+            @Override
+            public int offer(CreateTripEvent event, Collection<String> driverIds) {
+                offers.add(driverIds.size());
+                return driverIds.size();
+            }
+        };
+        CreateTripListener listener = new CreateTripListener();
+        ReflectionTestUtils.setField(listener, "driverService", driverService);
+        ReflectionTestUtils.setField(listener, "tripOfferPublisher", publisher);
+        ReflectionTestUtils.setField(listener, "dispatchProperties", new DispatchProperties());
+
+        ContainerProperties containerProperties = new ContainerProperties(TRIP_TOPIC);
+        containerProperties.setMessageListener((BatchMessageListener<String, String>) records -> {
+            List<String> messages = new ArrayList<>(records.size());
+            for (ConsumerRecord<String, String> record : records) {
+                messages.add(record.value());
+            }
+            try {
+                listener.listenTripCreated(messages);
+            } catch (RuntimeException e) {
+                dispatchErrors.increment();
+            }
+            // Record timestamps are the producer's send time, so this is publish-to-offer latency
+            long now = System.currentTimeMillis();
+            for (ConsumerRecord<String, String> record : records) {
+                dispatchLatency.record(now - record.timestamp(), TimeUnit.MILLISECONDS);
+            }
+            tripsDispatched.add(records.size());
+        });
+        DefaultKafkaConsumerFactory<String, String> consumerFactory = new DefaultKafkaConsumerFactory<>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers,
+                ConsumerConfig.GROUP_ID_CONFIG, "driver-service-group",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class));
+        ConcurrentMessageListenerContainer<String, String> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        container.setConcurrency(concurrency);
+        return container;
+    }
+
+    /**
+     * Moves every {@code stride}-th driver starting at {@code slice} once per interval and sends its ping.
+     */
+    private void pingLoop(DriverService driverService, SimulatedDriver[] fleet, int slice, int stride, int intervalMs) {
+        double stepMeters = SPEED_METERS_PER_SECOND * intervalMs / 1000.0;
+        long nextTick = System.nanoTime();
+        while (running.get()) {
+            for (int i = slice; i < fleet.length && running.get(); i += stride) {
+                SimulatedDriver driver = fleet[i];
+                driver.move(stepMeters);
+                long start = System.nanoTime();
+                try {
+                    driverService.updateDriverLocation(driver.id, driver.latitude, driver.longitude);
+                } catch (RuntimeException e) {
+                    pingErrors.increment();
+                }
+                pingLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                pings.increment();
+            }
+            nextTick += TimeUnit.MILLISECONDS.toNanos(intervalMs);
+            long sleepNanos = nextTick - System.nanoTime();
+            if (sleepNanos > 0) {
+                sleep(sleepNanos);
+            } else {
+                // Fell behind; start the next round now rather than bursting to catch up
+                nextTick = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Publishes trips with pickups next to random drivers, paced in 10 ms slots to hold {@code ratePerSecond}.
+     */
+    private void tripLoop(KafkaTemplate<String, String> kafkaTemplate, SimulatedDriver[] fleet, int ratePerSecond) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        long startNanos = System.nanoTime();
+        long sent = 0;
+        while (running.get()) {
+            long due = (long) ((System.nanoTime() - startNanos) / 1e9 * ratePerSecond);
+            for (; sent < due; sent++) {
+                SimulatedDriver near = fleet[ThreadLocalRandom.current().nextInt(fleet.length)];
+                CreateTripEvent event = new CreateTripEvent();
+                event.setTripId("sim-trip-" + sent);
+                event.setUserId("sim-user-" + sent);
+                event.setOrigin("origin");
+                event.setDestination("destination");
+                event.setLatitude(near.latitude + jitter(0.005));
+                event.setLongitude(near.longitude + jitter(0.005));
+                try {
+                    kafkaTemplate.send(TRIP_TOPIC, event.getTripId(), objectMapper.writeValueAsString(event))
+                            .thenRun(tripsPublished::increment);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to publish trip", e);
+                }
+            }
+            sleep(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private void report(double elapsedSeconds) {
+        long tripCount = tripsDispatched.sum();
+        System.out.println();
+        System.out.printf("Location pings   %10d in %.1fs = %10.0f/s, errors %d%n",
+                pings.sum(), elapsedSeconds, pings.sum() / elapsedSeconds, pingErrors.sum());
+        System.out.printf("  latency        p50 %8.1f us   p99 %8.1f us   max %8.1f us%n",
+                percentile(pingLatency, 0.5, TimeUnit.MICROSECONDS),
+                percentile(pingLatency, 0.99, TimeUnit.MICROSECONDS),
+                pingLatency.max(TimeUnit.MICROSECONDS));
+        System.out.printf("Trips dispatched %10d of %d published = %10.0f/s, errors %d, %.1f offers/trip%n",
+                tripCount, tripsPublished.sum(), tripCount / elapsedSeconds, dispatchErrors.sum(),
+                tripCount > 0 ? (double) offers.sum() / tripCount : 0.0);
+        System.out.printf("  publish-offer  p50 %8.1f ms   p99 %8.1f ms   max %8.1f ms%n",
+                percentile(dispatchLatency, 0.5, TimeUnit.MILLISECONDS),
+                percentile(dispatchLatency, 0.99, TimeUnit.MILLISECONDS),
+                dispatchLatency.max(TimeUnit.MILLISECONDS));
+        System.out.printf("Consumer lag     max %d, after drain %d%n",
+                maxLag.get(), tripsPublished.sum() - tripsDispatched.sum());
+    }
+
+    private Timer latencyTimer(String name) {
+        // Percentiles over the whole run rather than Micrometer's default two-minute decay window, with
+        // three significant digits instead of the default one so they stay close to the recorded values
+        return Timer.builder(name)
+                .publishPercentiles(0.5, 0.99)
+                .percentilePrecision(3)
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    // Percentiles come from histogram buckets and can land above the largest recorded value
+    private static double percentile(Timer timer, double percentile, TimeUnit unit) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return Math.min(value.value(unit), snapshot.max(unit));
+            }
+        }
+        return Double.NaN;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static Thread start(String name, Runnable task) {
+        Thread thread = new Thread(task, "fleet-simulator-" + name);
+        thread.start();
+        return thread;
+    }
+
+    private static void sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double jitter(double degrees) {
+        return (ThreadLocalRandom.current().nextDouble() * 2 - 1) * degrees;
+    }
+
+    /**
+     * A driver on a random walk: constant speed, heading drifting a little every step.
+     * Each driver is only ever moved by the one ping thread that owns its slice.
+     */
+    private static final class SimulatedDriver {
+        private final String id;
+        private volatile double latitude;
+        private volatile double longitude;
+        private double heading;
+
+        private SimulatedDriver(String id) {
+            this.id = id;
+            this.latitude = CENTER_LATITUDE + jitter(SPREAD_DEGREES);
+            this.longitude = CENTER_LONGITUDE + jitter(SPREAD_DEGREES);
+            this.heading = ThreadLocalRandom.current().nextDouble(2 * Math.PI);
+        }
+
+        private void move(double meters) {
+            heading += jitter(0.3);
+            latitude += meters * Math.cos(heading) / METERS_PER_DEGREE;
+            longitude += meters * Math.sin(heading) / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+            // Turn back towards the center instead of wandering off the map
+            if (Math.abs(latitude - CENTER_LATITUDE) > SPREAD_DEGREES
+                    || Math.abs(longitude - CENTER_LONGITUDE) > SPREAD_DEGREES) {
+                heading += Math.PI;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.driver_service.loadtest;
+
+import com.example.driver_service.ENUM.Status;
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import com.example.driver_service.repository.DriverStatusRepository;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-ins for the Redis repositories. Every call parks for {@code roundTripMicros} to
+ * mimic the network round trip the real repository makes, so the harness can be run with a
+ * production-like Redis latency without a Redis server.
+ */
+final class InProcessRedis {
+    private final long roundTripNanos;
+
+    InProcessRedis(long roundTripMicros) {
+        this.roundTripNanos = TimeUnit.MICROSECONDS.toNanos(roundTripMicros);
+    }
+
+    private void roundTrip() {
+        if (roundTripNanos > 0) {
+            LockSupport.parkNanos(roundTripNanos);
+        }
+    }
+
+    /**
+     * Geo index backed by a {@link DriverGridIndex}, answering the same calls the Redis engine makes.
+     */
+    DriverLocationRepository driverLocationRepository(GeoProperties geoProperties) {
+        DriverGridIndex index = new DriverGridIndex(geoProperties);
+        Map<String, Double> lastSeen = new ConcurrentHashMap<>();
+        return new DriverLocationRepository(null, geoProperties) {
+            @Override
+            public void save(String driverId, Point point) {
+                saveAll(Map.of(driverId, point));
+            }
+
+            @Override
+            public void saveAll(Map<String, Point> points) {
+                roundTrip();
+                double now = System.currentTimeMillis();
+                points.forEach((driverId, point) -> {
+                    index.update(driverId, point.getY(), point.getX());
+                    lastSeen.put(driverId, now);
+                });
+            }
+
+            @Override
+            public boolean park(String driverId) {
+                roundTrip();
+                index.remove(driverId);
+                return lastSeen.remove(driverId) != null;
+            }
+
+            @Override
+            public boolean restore(String driverId) {
+                roundTrip();
+                return false;
+            }
+
+            @Override
+            public Point position(String driverId) {
+                roundTrip();
+                return null;
+            }
+
+            @Override
+            public List<Point> positions(List<String> driverIds) {
+                roundTrip();
+                List<Point> positions = new ArrayList<>(driverIds.size());
+                for (String driverId : driverIds) {
+                    positions.add(index.position(driverId));
+                }
+                return positions;
+            }
+
+            @Override
+            public List<GeoResults<GeoLocation<String>>> radiusAll(List<Circle> circles) {
+                roundTrip();
+                List<GeoResults<GeoLocation<String>>> results = new ArrayList<>(circles.size());
+                for (Circle circle : circles) {
+                    results.add(search(circle.getCenter(), circle.getRadius().in(Metrics.KILOMETERS).getValue(),
+                            Integer.MAX_VALUE));
+                }
+                return results;
+            }
+
+            @Override
+            public List<GeoResults<GeoLocation<String>>> searchNearest(List<Point> centers, double radiusKm, int limit) {
+                roundTrip();
+                List<GeoResults<GeoLocation<String>>> results = new ArrayList<>(centers.size());
+                for (Point center : centers) {
+                    results.add(search(center, radiusKm, limit));
+                }
+                return results;
+            }
+
+            private GeoResults<GeoLocation<String>> search(Point center, double radiusKm, int limit) {
+                List<GeoResult<String>> found = index.findNearby(center.getY(), center.getX(), radiusKm).getContent();
+                List<GeoResult<GeoLocation<String>>> content = new ArrayList<>(Math.min(found.size(), limit));
+                for (int i = 0; i < found.size() && i < limit; i++) {
+                    GeoResult<String> result = found.get(i);
+                    content.add(new GeoResult<>(new GeoLocation<>(result.getContent(), null), result.getDistance()));
+                }
+                return new GeoResults<>(content, Metrics.KILOMETERS);
+            }
+
+            @Override
+            public List<Double> lastSeen(List<String> driverIds) {
+                roundTrip();
+                List<Double> seen = new ArrayList<>(driverIds.size());
+                for (String driverId : driverIds) {
+                    seen.add(lastSeen.get(driverId));
+                }
+                return seen;
+            }
+
+            @Override
+            public long countActive() {
+                roundTrip();
+                return lastSeen.size();
+            }
+        };
+    }
+
+    DriverStatusRepository driverStatusRepository() {
+        Map<String, Status> statuses = new ConcurrentHashMap<>();
+        return new DriverStatusRepository(null) {
+            @Override
+            public void setStatus(String driverId, Status status) {
+                roundTrip();
+                statuses.put(driverId, status);
+            }
+
+            @Override
+            public Status getStatus(String driverId) {
+                roundTrip();
+                return statuses.get(driverId);
+            }
+
+            @Override
+            public List<Status> getStatuses(List<String> driverIds) {
+                roundTrip();
+                List<Status> result = new ArrayList<>(driverIds.size());
+                for (String driverId : driverIds) {
+                    result.add(statuses.get(driverId));
+                }
+                return result;
+            }
+        };
+    }
+}
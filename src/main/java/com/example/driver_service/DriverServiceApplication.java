@@ -3,9 +3,11 @@ package com.example.driver_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableFeignClients(basePackages = "com.example.driver_service.client")
+@EnableScheduling
 public class DriverServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,8 @@
+package com.example.driver_service.ENUM;
+
+public enum LogLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR
+}
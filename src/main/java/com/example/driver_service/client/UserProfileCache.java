@@ -0,0 +1,64 @@
+package com.example.driver_service.client;
+
+import com.example.driver_service.DTO.UserDTO;
+import com.example.driver_service.properties.UserProfileProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Local cache in front of {@link UserClient#getUserInfo()}, keyed by the authenticated user id.
+ * Loads run on the calling thread so the Feign interceptor still sees the caller's token, and
+ * concurrent misses for the same id wait on a single remote call. When refresh-after is set, an
+ * entry older than that is served as-is while a background reload replaces it.
+ */
+@Component
+public class UserProfileCache {
+    private final UserClient userClient;
+    private final LoadingCache<String, UserDTO> profiles;
+
+    public UserProfileCache(UserClient userClient, UserProfileProperties properties) {
+        this.userClient = userClient;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getCacheTtlSeconds()))
+                // Background refreshes carry the security context of the request that triggered them
+                .executor(new DelegatingSecurityContextExecutor(ForkJoinPool.commonPool()))
+                .recordStats();
+        if (properties.getCacheRefreshAfterSeconds() > 0) {
+            builder.refreshAfterWrite(Duration.ofSeconds(properties.getCacheRefreshAfterSeconds()));
+        }
+        this.profiles = builder.build(userId -> userClient.getUserInfo());
+    }
+
+    public UserDTO getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getName() == null) {
+            return userClient.getUserInfo();
+        }
+        return profiles.get(authentication.getName());
+    }
+
+    public void evict(String userId) {
+        profiles.invalidate(userId);
+    }
+
+    public CacheStats getStats() {
+        return profiles.stats();
+    }
+
+    public double getHitRatio() {
+        return profiles.stats().hitRate();
+    }
+
+    public long getSize() {
+        return profiles.estimatedSize();
+    }
+}
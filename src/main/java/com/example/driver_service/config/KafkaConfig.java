@@ -0,0 +1,29 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.properties.DispatchProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConfig {
+    /**
+     * Picked up by the auto-configured listener container factory. Failed records are retried with a
+     * fixed back-off and then published to {@code <topic>.DLT}; malformed events skip the retries.
+     */
+    @Bean
+    public DefaultErrorHandler kafkaErrorHandler(KafkaTemplate<String, String> kafkaTemplate,
+                                                 DispatchProperties dispatchProperties) {
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + dispatchProperties.getDeadLetterSuffix(), -1));
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer,
+                new FixedBackOff(dispatchProperties.getRetryIntervalMs(), dispatchProperties.getRetryAttempts()));
+        errorHandler.addNotRetryableExceptions(JsonProcessingException.class, IllegalArgumentException.class);
+        return errorHandler;
+    }
+}
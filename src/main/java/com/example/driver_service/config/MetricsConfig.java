@@ -0,0 +1,123 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.client.UserProfileCache;
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.history.LocationHistoryWriter;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.repository.DriverLocationRepository;
+import com.example.driver_service.service.HeatmapRecorder;
+import com.example.driver_service.websocket.DriverSessionRegistry;
+import com.example.driver_service.websocket.LocationStreamHandler;
+import com.example.driver_service.websocket.TripOfferMetrics;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the service's own counters through Micrometer. Latency timers come from {@code @Timed}
+ * on the service and Redis repositories; Spring Boot adds Mongo, Kafka template, Lettuce and
+ * Feign client timings on its own.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder driverGeoMeters(DriverLocationRepository driverLocationRepository,
+                                       DriverGridIndex driverGridIndex,
+                                       LocationWriteFilter locationWriteFilter) {
+        return registry -> {
+            // ZCARD on every scrape; cheap even for large sets
+            Gauge.builder("driver.geo.active", driverLocationRepository, DriverLocationRepository::countActive)
+                    .description("Drivers in the active_drivers geo set")
+                    .register(registry);
+            Gauge.builder("driver.geo.grid.size", driverGridIndex, DriverGridIndex::size)
+                    .description("Drivers in this node's in-memory grid")
+                    .register(registry);
+            counter(registry, "driver.location.writes", locationWriteFilter, LocationWriteFilter::getWrittenCount, "result", "written");
+            counter(registry, "driver.location.writes", locationWriteFilter, LocationWriteFilter::getSkippedCount, "result", "skipped");
+        };
+    }
+
+    @Bean
+    public MeterBinder driverPipelineMeters(DriverLogShipper driverLogShipper,
+                                            LocationHistoryWriter locationHistoryWriter,
+                                            HeatmapRecorder heatmapRecorder) {
+        return registry -> {
+            counter(registry, "driver.logs.records", driverLogShipper, DriverLogShipper::getShippedCount, "result", "shipped");
+            counter(registry, "driver.logs.records", driverLogShipper, DriverLogShipper::getDroppedCount, "result", "dropped");
+            counter(registry, "driver.logs.records", driverLogShipper, DriverLogShipper::getFilteredCount, "result", "filtered");
+            counter(registry, "driver.logs.records", driverLogShipper, DriverLogShipper::getFailedCount, "result", "failed");
+            Gauge.builder("driver.logs.queue", driverLogShipper, DriverLogShipper::getQueueSize).register(registry);
+
+            counter(registry, "driver.history.points", locationHistoryWriter, LocationHistoryWriter::getRecordedCount, "result", "recorded");
+            counter(registry, "driver.history.points", locationHistoryWriter, LocationHistoryWriter::getDroppedCount, "result", "dropped");
+            counter(registry, "driver.history.points", locationHistoryWriter, LocationHistoryWriter::getWrittenCount, "result", "written");
+            counter(registry, "driver.history.points", locationHistoryWriter, LocationHistoryWriter::getFailedCount, "result", "failed");
+            Gauge.builder("driver.history.queue", locationHistoryWriter, LocationHistoryWriter::getQueueSize).register(registry);
+
+            counter(registry, "driver.heatmap.updates", heatmapRecorder, HeatmapRecorder::getFlushedCount, "result", "flushed");
+            counter(registry, "driver.heatmap.updates", heatmapRecorder, HeatmapRecorder::getFailedCount, "result", "failed");
+            Gauge.builder("driver.heatmap.pending", heatmapRecorder, HeatmapRecorder::getPendingSize).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder driverWebSocketMeters(TripOfferMetrics tripOfferMetrics,
+                                             DriverSessionRegistry driverSessionRegistry,
+                                             LocationStreamHandler locationStreamHandler) {
+        return registry -> {
+            counter(registry, "driver.trip.offers", tripOfferMetrics, TripOfferMetrics::getOffered, "result", "offered");
+            counter(registry, "driver.trip.offers", tripOfferMetrics, TripOfferMetrics::getDelivered, "result", "delivered");
+            counter(registry, "driver.trip.offers", tripOfferMetrics, TripOfferMetrics::getDropped, "result", "dropped");
+            counter(registry, "driver.trip.offers", tripOfferMetrics, TripOfferMetrics::getFailed, "result", "failed");
+            counter(registry, "driver.trip.offers", tripOfferMetrics, TripOfferMetrics::getNotConnected, "result", "not_connected");
+            // The offer latency timer is registered by TripOfferMetrics, which records into it
+            Gauge.builder("driver.websocket.sessions", driverSessionRegistry, DriverSessionRegistry::size).register(registry);
+
+            counter(registry, "driver.location.stream.records", locationStreamHandler, LocationStreamHandler::getAcceptedCount, "result", "accepted");
+            counter(registry, "driver.location.stream.records", locationStreamHandler, LocationStreamHandler::getRejectedCount, "result", "rejected");
+            counter(registry, "driver.location.stream.records", locationStreamHandler, LocationStreamHandler::getOutOfOrderCount, "result", "out_of_order");
+        };
+    }
+
+    @Bean
+    public MeterBinder driverCacheMeters(SecurityContextFilter securityContextFilter, UserProfileCache userProfileCache,
+                                         NearbyResultCache nearbyResultCache) {
+        return registry -> {
+            cache(registry, "jwt", securityContextFilter::getTokenCacheStats, securityContextFilter::getTokenCacheSize);
+            cache(registry, "user_profile", userProfileCache::getStats, userProfileCache::getSize);
+            cache(registry, "nearby", nearbyResultCache::getStats, nearbyResultCache::getSize);
+        };
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> count,
+                                    String tagKey, String tagValue) {
+        FunctionCounter.builder(name, source, count).tag(tagKey, tagValue).register(registry);
+    }
+
+    // Same meter names as Micrometer's Caffeine binder so dashboards work unchanged
+    private static void cache(MeterRegistry registry, String cacheName, Supplier<CacheStats> stats, Supplier<Long> size) {
+        FunctionCounter.builder("cache.gets", stats, s -> s.get().hitCount())
+                .tag("cache", cacheName).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", stats, s -> s.get().missCount())
+                .tag("cache", cacheName).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", stats, s -> s.get().evictionCount())
+                .tag("cache", cacheName).register(registry);
+        Gauge.builder("cache.size", size, s -> s.get())
+                .tag("cache", cacheName).register(registry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.model.Driver;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+@Configuration
+public class MongoIndexConfig {
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Spring Boot leaves auto index creation off, so the indexes declared on the documents are created
+     * here at startup. Creating an index that already exists is a no-op; a unique index that cannot be
+     * built because of duplicate driverIds fails startup instead of silently falling back to scans.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        ensureIndexes(mongoTemplate, Driver.class);
+    }
+
+    public static void ensureIndexes(MongoTemplate mongoTemplate, Class<?> documentType) {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        IndexOperations indexOperations = mongoTemplate.indexOps(documentType);
+        resolver.resolveIndexFor(documentType).forEach(indexOperations::ensureIndex);
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.driver_service.config;
 
 import com.example.driver_service.properties.JwtProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.FilterChain;
@@ -19,14 +24,28 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class SecurityContextFilter extends OncePerRequestFilter {
     private final JwtProperties jwtProperties;
+    private final JwtParser jwtParser;
+    // Tokens that already passed signature verification, expiring no later than their exp claim
+    private final Cache<String, VerifiedToken> verifiedTokens;
 
     public SecurityContextFilter(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
+        SecretKey secretKey = Keys.hmacShaKeyFor(jwtProperties.getSecretKey().getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaxSize())
+                .expireAfter(new TokenExpiry(TimeUnit.SECONDS.toMillis(jwtProperties.getCacheMaxTtlSeconds())))
+                .recordStats()
+                .build();
     }
 
     @Override
@@ -37,26 +56,67 @@ public class SecurityContextFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
 
-            try {
-                SecretKey secretKey = Keys.hmacShaKeyFor(jwtProperties.getSecretKey().getBytes());
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(secretKey)
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody();
+            VerifiedToken verified = verifiedTokens.getIfPresent(token);
+            if (verified == null || verified.expiresAtMillis() <= System.currentTimeMillis()) {
+                verified = verify(token);
+                verifiedTokens.put(token, verified);
+            }
+
+            SecurityContextHolder.getContext().setAuthentication(verified.authentication());
+        }
 
-                String userId = String.valueOf(claims.get("userId"));
-                String authorities = String.valueOf(claims.get("authorities"));
+        filterChain.doFilter(request, response);
+    }
 
-                List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
-                Authentication authentication = new UsernamePasswordAuthenticationToken(userId, token, auth);
+    private VerifiedToken verify(String token) {
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            } catch (Exception e) {
-                throw new BadCredentialsException("invalid token.....");
-            }
+            String userId = String.valueOf(claims.get("userId"));
+            String authorities = String.valueOf(claims.get("authorities"));
+
+            List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
+            Authentication authentication = new UsernamePasswordAuthenticationToken(userId, token, auth);
+
+            Date expiration = claims.getExpiration();
+            return new VerifiedToken(authentication, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+        } catch (Exception e) {
+            throw new BadCredentialsException("invalid token.....");
         }
+    }
 
-        filterChain.doFilter(request, response);
+    public CacheStats getTokenCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    public long getTokenCacheSize() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    private record VerifiedToken(Authentication authentication, long expiresAtMillis) {
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+        private final long maxTtlMillis;
+
+        private TokenExpiry(long maxTtlMillis) {
+            this.maxTtlMillis = maxTtlMillis;
+        }
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            long untilExpiry = verified.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(untilExpiry, maxTtlMillis)));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
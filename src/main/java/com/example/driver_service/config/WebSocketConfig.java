@@ -0,0 +1,35 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.properties.WebSocketProperties;
+import com.example.driver_service.websocket.LocationStreamHandler;
+import com.example.driver_service.websocket.TripOfferWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+    private final TripOfferWebSocketHandler tripOfferWebSocketHandler;
+    private final LocationStreamHandler locationStreamHandler;
+    private final WebSocketProperties webSocketProperties;
+
+    public WebSocketConfig(
+        TripOfferWebSocketHandler tripOfferWebSocketHandler,
+        LocationStreamHandler locationStreamHandler,
+        WebSocketProperties webSocketProperties
+    ) {
+        this.tripOfferWebSocketHandler = tripOfferWebSocketHandler;
+        this.locationStreamHandler = locationStreamHandler;
+        this.webSocketProperties = webSocketProperties;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(tripOfferWebSocketHandler, "/ws/trip-offers")
+                .setAllowedOrigins(webSocketProperties.getAllowedOrigins());
+        registry.addHandler(locationStreamHandler, "/ws/locations")
+                .setAllowedOrigins(webSocketProperties.getAllowedOrigins());
+    }
+}
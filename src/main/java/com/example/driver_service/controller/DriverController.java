@@ -2,13 +2,20 @@ package com.example.driver_service.controller;
 
 import com.example.driver_service.model.Driver;
 import com.example.driver_service.request.AcceptTripRequest;
+import com.example.driver_service.request.BulkDriverLocationRequest;
+import com.example.driver_service.request.BulkDriverStatusRequest;
 import com.example.driver_service.request.DriverLocationRequest;
+import com.example.driver_service.response.BulkDriverLocationResponse;
+import com.example.driver_service.response.BulkDriverStatusResponse;
 import com.example.driver_service.response.DriverLocationResponse;
+import com.example.driver_service.response.HeatmapResponse;
 import com.example.driver_service.service.DriverService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/drivers")
 public class DriverController {
@@ -20,11 +27,21 @@ public class DriverController {
         return ResponseEntity.ok(driverService.updateDriverLocation(driverLocationRequest, id));
     }
 
+    @PutMapping("/locations")
+    ResponseEntity<BulkDriverLocationResponse> updateDriverLocations(@RequestBody BulkDriverLocationRequest bulkDriverLocationRequest) {
+        return ResponseEntity.ok(driverService.updateDriverLocations(bulkDriverLocationRequest));
+    }
+
     @GetMapping("/{id}/location")
     ResponseEntity<DriverLocationResponse> getDriverLocation(@PathVariable("id") String driverId) throws Exception {
         return ResponseEntity.ok(driverService.getDriverLocation(driverId));
     }
 
+    @GetMapping("/locations")
+    ResponseEntity<List<DriverLocationResponse>> getDriverLocations(@RequestParam("ids") List<String> driverIds) {
+        return ResponseEntity.ok(driverService.getDriverLocations(driverIds));
+    }
+
     @PutMapping("/{id}/on")
     ResponseEntity<String> turnOnDriver(@PathVariable("id") String driverId) throws Exception {
         return ResponseEntity.ok(driverService.turnOnDriver(driverId));
@@ -35,6 +52,16 @@ public class DriverController {
         return ResponseEntity.ok(driverService.turnOffDriver(driverId));
     }
 
+    @PutMapping("/status")
+    ResponseEntity<BulkDriverStatusResponse> updateDriverStatuses(@RequestBody BulkDriverStatusRequest bulkDriverStatusRequest) {
+        return ResponseEntity.ok(driverService.updateDriverStatuses(bulkDriverStatusRequest));
+    }
+
+    @GetMapping("/heatmap")
+    ResponseEntity<HeatmapResponse> getHeatmap(@RequestParam(value = "since", defaultValue = "0") long since) {
+        return ResponseEntity.ok(driverService.getHeatmap(since));
+    }
+
     @PostMapping()
     public ResponseEntity<String> acceptTrip(@RequestBody AcceptTripRequest acceptTripRequest) throws Exception {
         // Placeholder implementation
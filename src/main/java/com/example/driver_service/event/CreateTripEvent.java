@@ -1,5 +1,7 @@
 package com.example.driver_service.event;
 
+import com.example.driver_service.geo.CoordinateDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
 @Data
@@ -8,6 +10,8 @@ public class CreateTripEvent {
     private String userId;
     private String origin;
     private String destination;
-    private String latitude;
-    private String longitude;
+    @JsonDeserialize(using = CoordinateDeserializer.class)
+    private double latitude = Double.NaN;
+    @JsonDeserialize(using = CoordinateDeserializer.class)
+    private double longitude = Double.NaN;
 }
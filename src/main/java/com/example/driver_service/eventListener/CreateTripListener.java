@@ -1,66 +1,83 @@
 package com.example.driver_service.eventListener;
 
-import com.example.driver_service.event.AcceptTripEvent;
 import com.example.driver_service.event.CreateTripEvent;
+import com.example.driver_service.geo.GeoUtils;
+import com.example.driver_service.properties.DispatchProperties;
 import com.example.driver_service.service.DriverService;
+import com.example.driver_service.websocket.TripOfferPublisher;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.geo.GeoResult;
 import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
 @Component
 public class CreateTripListener {
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private static final String TOPIC_DRIVER_ASSIGNED = "trip_created";
     @Autowired
     private DriverService driverService;
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
-
-    @KafkaListener(topics = "trip_create_wait_driver", groupId = "driver-service-group")
-    public void listenTripCreated(String message) {
-        try {
-            CreateTripEvent event = objectMapper.readValue(message, CreateTripEvent.class);
-            double longitude = Double.parseDouble(event.getLongitude());
-            double latitude = Double.parseDouble(event.getLatitude());
-            GeoResults<String> drivers = driverService.findDriversNearby(
-                    latitude,
-                    longitude,
-                    10.0
-            );
-
-            List<GeoResult<String>> driverList = drivers.getContent();
+    private TripOfferPublisher tripOfferPublisher;
+    @Autowired
+    private DispatchProperties dispatchProperties;
 
-            if (driverList.isEmpty()) {
-                return;
+    /**
+     * Consumes trips in batches; each trip is offered to its nearest drivers, and the lookups of a
+     * whole batch share one Redis round trip per search radius. The pickups of the trips that are
+     * committed are then counted in the demand heatmap in one call.
+     * A bad record is reported by index so the records before it are committed, it goes through
+     * retry/DLT on its own, and the records after it are redelivered.
+     */
+    @KafkaListener(topics = "trip_create_wait_driver", groupId = "driver-service-group",
+            batch = "true", concurrency = "${driver.dispatch.concurrency:3}")
+    public void listenTripCreated(List<String> messages) {
+        List<CreateTripEvent> events = new ArrayList<>(messages.size());
+        List<Point> pickups = new ArrayList<>(messages.size());
+        BatchListenerFailedException invalid = null;
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                CreateTripEvent event = objectMapper.readValue(messages.get(i), CreateTripEvent.class);
+                if (!GeoUtils.isValidCoordinate(event.getLatitude(), event.getLongitude())) {
+                    throw new IllegalArgumentException("Invalid pickup coordinates for trip " + event.getTripId());
+                }
+                events.add(event);
+                pickups.add(new Point(event.getLongitude(), event.getLatitude()));
+            } catch (Exception e) {
+                invalid = new BatchListenerFailedException("Invalid trip event", e, i);
+                break;
             }
+        }
 
-//            String bestDriverId = driverList.get(0).getContent();
-//            AcceptTripEvent createdTripEvent = new AcceptTripEvent();
-//            createdTripEvent.setTripId(event.getTripId());
-//            createdTripEvent.setDriverId(bestDriverId);
-//
-//            String event2Json = objectMapper.writeValueAsString(createdTripEvent);
-//            kafkaTemplate.send(TOPIC_DRIVER_ASSIGNED, event2Json);
-
-            for(GeoResult<String> driver : driverList) {
-                String driverId = driver.getContent();
-                AcceptTripEvent createdTripEvent = new AcceptTripEvent();
-                createdTripEvent.setTripId(event.getTripId());
-                createdTripEvent.setDriverId(driverId);
-
-                System.out.println("Notifying driver: " + driverId + " for trip: " + event.getTripId());
+        if (!pickups.isEmpty()) {
+            List<GeoResults<String>> nearby = driverService.findNearestDrivers(pickups,
+                    dispatchProperties.getCandidateCount());
+            for (int i = 0; i < events.size(); i++) {
+                List<String> driverIds = nearby.get(i).getContent().stream()
+                        .map(GeoResult::getContent)
+                        .toList();
+                if (driverIds.isEmpty()) {
+                    continue;
+                }
+                try {
+                    tripOfferPublisher.offer(events.get(i), driverIds);
+                } catch (Exception e) {
+                    // Only the trips before the failed one are committed, the rest are counted on redelivery
+                    driverService.recordTripRequests(pickups.subList(0, i));
+                    throw new BatchListenerFailedException("Failed to offer trip " + events.get(i).getTripId(), e, i);
+                }
             }
-            System.out.println("Received trip event: " + event);
-            // add websocket notification logic here if needed
-        } catch (Exception e) {
-            e.printStackTrace();
+            driverService.recordTripRequests(pickups);
+        }
+
+        if (invalid != null) {
+            throw invalid;
         }
     }
 }
@@ -0,0 +1,45 @@
+package com.example.driver_service.geo;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a latitude or longitude into a primitive double. JSON numbers are read directly; quoted
+ * numbers from older clients and producers are still accepted. Missing, null and blank values
+ * become NaN, which {@link GeoUtils#isValidCoordinate} rejects. Bounds are checked by the caller.
+ */
+public class CoordinateDeserializer extends StdDeserializer<Double> {
+
+    public CoordinateDeserializer() {
+        super(Double.class);
+    }
+
+    @Override
+    public Double deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return Double.NaN;
+            }
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return (Double) context.handleWeirdStringValue(Double.class, text, "not a valid coordinate");
+            }
+        }
+        return (Double) context.handleUnexpectedToken(Double.class, parser);
+    }
+
+    @Override
+    public Double getNullValue(DeserializationContext context) {
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.properties.GeoProperties;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process uniform grid over latitude/longitude used by the {@code memory} geo engine.
+ * Each cell keeps its drivers in parallel primitive arrays so radius scans stay allocation free.
+ * The grid is loaded from the Redis geo index on startup and then only sees this node's location
+ * updates, so the memory engine is only correct with a single replica.
+ */
+@Component
+public class DriverGridIndex {
+    private static final int INITIAL_CELL_CAPACITY = 8;
+
+    private final double cellDegrees;
+    private final int columns;
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<String, Long> driverCells = new ConcurrentHashMap<>();
+
+    public DriverGridIndex(GeoProperties geoProperties) {
+        this.cellDegrees = geoProperties.getGridCellDegrees();
+        this.columns = (int) Math.ceil(360.0 / cellDegrees);
+    }
+
+    public void update(String driverId, double latitude, double longitude) {
+        long key = cellKey(row(latitude), column(longitude));
+        driverCells.compute(driverId, (id, previousKey) -> {
+            if (previousKey != null && previousKey != key) {
+                Cell previous = cells.get(previousKey);
+                if (previous != null) {
+                    previous.remove(id);
+                }
+            }
+            cells.computeIfAbsent(key, k -> new Cell()).put(id, latitude, longitude);
+            return key;
+        });
+    }
+
+    /**
+     * Adds a driver last seen at {@code updatedAtMillis} unless the grid already holds it, so a
+     * position loaded at startup never overwrites a ping that arrived first.
+     *
+     * @return true if the driver was added
+     */
+    public boolean load(String driverId, double latitude, double longitude, long updatedAtMillis) {
+        long key = cellKey(row(latitude), column(longitude));
+        boolean[] added = new boolean[1];
+        driverCells.computeIfAbsent(driverId, id -> {
+            cells.computeIfAbsent(key, k -> new Cell()).put(id, latitude, longitude, updatedAtMillis);
+            added[0] = true;
+            return key;
+        });
+        return added[0];
+    }
+
+    public void remove(String driverId) {
+        driverCells.computeIfPresent(driverId, (id, key) -> {
+            Cell cell = cells.get(key);
+            if (cell != null) {
+                cell.remove(id);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return the driver's last indexed position, or null when the driver is not in the grid
+     */
+    public Point position(String driverId) {
+        Long key = driverCells.get(driverId);
+        Cell cell = key != null ? cells.get(key) : null;
+        return cell != null ? cell.position(driverId) : null;
+    }
+
+    public int size() {
+        return driverCells.size();
+    }
+
+    public GeoResults<String> findNearby(double latitude, double longitude, double radiusKm) {
+        return findNearby(latitude, longitude, radiusKm, Long.MIN_VALUE);
+    }
+
+    /**
+     * Same as {@link #findNearby(double, double, double)} but skips drivers last updated before {@code minUpdatedAt}.
+     */
+    public GeoResults<String> findNearby(double latitude, double longitude, double radiusKm, long minUpdatedAt) {
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE_LATITUDE;
+        double lonSpan = GeoUtils.longitudeSpan(latitude, radiusKm);
+        int minRow = row(Math.max(-90.0, latitude - latSpan));
+        int maxRow = row(Math.min(90.0, latitude + latSpan));
+        int firstColumn = columnUnwrapped(longitude - lonSpan);
+        int lastColumn = Math.min(columnUnwrapped(longitude + lonSpan), firstColumn + columns - 1);
+
+        List<GeoResult<String>> results = new ArrayList<>();
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                Cell cell = cells.get(cellKey(r, Math.floorMod(c, columns)));
+                if (cell != null) {
+                    cell.collect(latitude, longitude, radiusKm, minUpdatedAt, results);
+                }
+            }
+        }
+        results.sort((a, b) -> Double.compare(a.getDistance().getValue(), b.getDistance().getValue()));
+        return new GeoResults<>(results, Metrics.KILOMETERS);
+    }
+
+    /**
+     * Drops every driver whose last update is older than {@code cutoffMillis}. The age is checked
+     * again under the cell's lock at removal, so a driver that pinged after the scan is kept.
+     *
+     * @return the number of drivers removed
+     */
+    public int removeOlderThan(long cutoffMillis) {
+        List<String> stale = new ArrayList<>();
+        for (Cell cell : cells.values()) {
+            cell.collectOlderThan(cutoffMillis, stale);
+        }
+        int removed = 0;
+        for (String driverId : stale) {
+            if (removeIfOlderThan(driverId, cutoffMillis)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes the driver only if its last update is still older than {@code cutoffMillis}.
+     *
+     * @return true if the driver was removed
+     */
+    boolean removeIfOlderThan(String driverId, long cutoffMillis) {
+        boolean[] removed = new boolean[1];
+        driverCells.computeIfPresent(driverId, (id, key) -> {
+            Cell cell = cells.get(key);
+            if (cell != null && !cell.removeIfOlderThan(id, cutoffMillis)) {
+                return key;
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod(columnUnwrapped(longitude), columns);
+    }
+
+    private int columnUnwrapped(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellDegrees);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static final class Cell {
+        private final Map<String, Integer> slots = new HashMap<>();
+        private String[] ids = new String[INITIAL_CELL_CAPACITY];
+        private double[] latitudes = new double[INITIAL_CELL_CAPACITY];
+        private double[] longitudes = new double[INITIAL_CELL_CAPACITY];
+        private long[] updatedAt = new long[INITIAL_CELL_CAPACITY];
+        private int size;
+
+        void put(String driverId, double latitude, double longitude) {
+            put(driverId, latitude, longitude, System.currentTimeMillis());
+        }
+
+        synchronized void put(String driverId, double latitude, double longitude, long updated) {
+            Integer slot = slots.get(driverId);
+            if (slot == null) {
+                if (size == ids.length) {
+                    int capacity = size * 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    latitudes = Arrays.copyOf(latitudes, capacity);
+                    longitudes = Arrays.copyOf(longitudes, capacity);
+                    updatedAt = Arrays.copyOf(updatedAt, capacity);
+                }
+                slot = size++;
+                ids[slot] = driverId;
+                slots.put(driverId, slot);
+            }
+            latitudes[slot] = latitude;
+            longitudes[slot] = longitude;
+            updatedAt[slot] = updated;
+        }
+
+        synchronized void remove(String driverId) {
+            Integer slot = slots.remove(driverId);
+            if (slot == null) {
+                return;
+            }
+            // Swap the last entry into the freed slot to keep the arrays dense
+            int last = --size;
+            if (slot != last) {
+                ids[slot] = ids[last];
+                latitudes[slot] = latitudes[last];
+                longitudes[slot] = longitudes[last];
+                updatedAt[slot] = updatedAt[last];
+                slots.put(ids[slot], slot);
+            }
+            ids[last] = null;
+        }
+
+        synchronized boolean removeIfOlderThan(String driverId, long cutoffMillis) {
+            Integer slot = slots.get(driverId);
+            if (slot != null && updatedAt[slot] >= cutoffMillis) {
+                return false;
+            }
+            remove(driverId);
+            return true;
+        }
+
+        synchronized Point position(String driverId) {
+            Integer slot = slots.get(driverId);
+            return slot != null ? new Point(longitudes[slot], latitudes[slot]) : null;
+        }
+
+        synchronized void collect(double latitude, double longitude, double radiusKm, long minUpdatedAt,
+                                  List<GeoResult<String>> out) {
+            for (int i = 0; i < size; i++) {
+                if (updatedAt[i] < minUpdatedAt) {
+                    continue;
+                }
+                double distance = GeoUtils.distanceKm(latitude, longitude, latitudes[i], longitudes[i]);
+                if (distance <= radiusKm) {
+                    out.add(new GeoResult<>(ids[i], new Distance(distance, Metrics.KILOMETERS)));
+                }
+            }
+        }
+
+        synchronized void collectOlderThan(long cutoffMillis, List<String> out) {
+            for (int i = 0; i < size; i++) {
+                if (updatedAt[i] < cutoffMillis) {
+                    out.add(ids[i]);
+                }
+            }
+        }
+    }
+}
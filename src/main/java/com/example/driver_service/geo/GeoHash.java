@@ -0,0 +1,86 @@
+package com.example.driver_service.geo;
+
+/**
+ * Standard base-32 geohash encoding and decoding, used to name heatmap cells.
+ */
+public final class GeoHash {
+    private static final String BASE32_INDEX = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final char[] BASE32 = BASE32_INDEX.toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90.0;
+        double maxLat = 90.0;
+        double minLon = -180.0;
+        double maxLon = 180.0;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                // Bits alternate between longitude and latitude, longitude first
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (longitude >= mid) {
+                        index = (index << 1) | 1;
+                        minLon = mid;
+                    } else {
+                        index <<= 1;
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (latitude >= mid) {
+                        index = (index << 1) | 1;
+                        minLat = mid;
+                    } else {
+                        index <<= 1;
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * Center of the geohash cell, as {@code {latitude, longitude}}.
+     */
+    public static double[] center(String geohash) {
+        double minLat = -90.0;
+        double maxLat = 90.0;
+        double minLon = -180.0;
+        double maxLon = 180.0;
+        boolean evenBit = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            int index = BASE32_INDEX.indexOf(geohash.charAt(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean set = ((index >> bit) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (set) {
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) {
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] {(minLat + maxLat) / 2, (minLon + maxLon) / 2};
+    }
+}
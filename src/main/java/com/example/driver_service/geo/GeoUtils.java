@@ -0,0 +1,41 @@
+package com.example.driver_service.geo;
+
+public final class GeoUtils {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE_LATITUDE = 111.32;
+    // Redis GEOADD rejects latitudes outside the Web Mercator range
+    public static final double MAX_GEO_LATITUDE = 85.05112878;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Great-circle distance between two coordinates, in kilometers.
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * True if the coordinate can be stored in a Redis geo set (NaN and infinities are rejected too).
+     */
+    public static boolean isValidCoordinate(double latitude, double longitude) {
+        return Math.abs(latitude) <= MAX_GEO_LATITUDE && Math.abs(longitude) <= 180.0;
+    }
+
+    /**
+     * Half-width in degrees of longitude covered by {@code radiusKm} at the given latitude.
+     */
+    public static double longitudeSpan(double latitude, double radiusKm) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        if (cos < 0.01) {
+            return 180.0;
+        }
+        return Math.min(180.0, radiusKm / (KM_PER_DEGREE_LATITUDE * cos));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.properties.GeoProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the last position written to Redis per driver so pings that barely moved can be
+ * acknowledged without a GEOADD. A write is still forced once {@code max-write-interval-seconds}
+ * have passed, which keeps the last-seen time well inside the stale-driver cutoff.
+ */
+@Component
+public class LocationWriteFilter {
+    private final double minMoveKm;
+    private final long maxWriteIntervalMillis;
+    private final Map<String, LastWrite> lastWrites = new ConcurrentHashMap<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    public LocationWriteFilter(GeoProperties geoProperties) {
+        this.minMoveKm = geoProperties.getMinMoveMeters() / 1000.0;
+        this.maxWriteIntervalMillis = TimeUnit.SECONDS.toMillis(geoProperties.getMaxWriteIntervalSeconds());
+    }
+
+    public boolean isEnabled() {
+        return minMoveKm > 0 && maxWriteIntervalMillis > 0;
+    }
+
+    /**
+     * @return true if the last write for this driver is recent and close enough that this ping can be skipped
+     */
+    public boolean isRedundant(String driverId, double latitude, double longitude, long now) {
+        if (!isEnabled()) {
+            return false;
+        }
+        LastWrite last = lastWrites.get(driverId);
+        boolean redundant = last != null
+                && now - last.writtenAt() < maxWriteIntervalMillis
+                && GeoUtils.distanceKm(last.latitude(), last.longitude(), latitude, longitude) < minMoveKm;
+        if (redundant) {
+            skipped.increment();
+        }
+        return redundant;
+    }
+
+    public void recordWrite(String driverId, double latitude, double longitude, long now) {
+        written.increment();
+        if (isEnabled()) {
+            lastWrites.put(driverId, new LastWrite(latitude, longitude, now));
+        }
+    }
+
+    /**
+     * Forgets the driver so the next ping is written, e.g. after it left active_drivers.
+     */
+    public void forget(String driverId) {
+        lastWrites.remove(driverId);
+    }
+
+    /**
+     * @return the number of entries removed
+     */
+    public int removeOlderThan(long cutoffMillis) {
+        int before = lastWrites.size();
+        lastWrites.values().removeIf(last -> last.writtenAt() < cutoffMillis);
+        return before - lastWrites.size();
+    }
+
+    public int size() {
+        return lastWrites.size();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    /**
+     * Share of accepted pings that did not need a Redis write.
+     */
+    public double getSavedRatio() {
+        long skippedCount = skipped.sum();
+        long total = skippedCount + written.sum();
+        return total == 0 ? 0 : (double) skippedCount / total;
+    }
+
+    private record LastWrite(double latitude, double longitude, long writtenAt) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.properties.GeoProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Short-lived cache of nearby-driver results, shared by queries whose centers fall in the same small
+ * cell. Every entry remembers the write version of the area it covers; a location write inside that
+ * area bumps the version, so the next lookup misses instead of serving a list without the new driver.
+ * Versions are kept per coarse cell in a fixed table of hashed slots, so collisions only cost a few
+ * extra misses. Drivers parked or swept on this node are dropped from the cache by id. Pings and
+ * removals handled by other replicas are not seen here, so across replicas a cached result can be up to
+ * {@code driver.geo.nearby-cache-ttl-ms} behind.
+ */
+@Component
+public class NearbyResultCache {
+    private static final int VERSION_SLOTS = 1 << 16;
+    // Areas spanning more version cells than this fall back to the global version
+    private static final int MAX_VERSION_CELLS = 256;
+
+    private final boolean enabled;
+    private final double cellDegrees;
+    private final double versionCellDegrees;
+    private final Cache<Key, Entry> results;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_SLOTS);
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final AtomicLong staleCount = new AtomicLong();
+
+    public NearbyResultCache(GeoProperties geoProperties) {
+        this.enabled = geoProperties.getNearbyCacheTtlMs() > 0;
+        this.cellDegrees = geoProperties.getNearbyCacheCellDegrees();
+        this.versionCellDegrees = geoProperties.getNearbyCacheVersionCellDegrees();
+        this.results = Caffeine.newBuilder()
+                .maximumSize(geoProperties.getNearbyCacheMaxSize())
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, geoProperties.getNearbyCacheTtlMs())))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Cache key for a query of the given kind and parameter (radius or count) around {@code center}.
+     */
+    public Key key(String kind, Point center, double parameter) {
+        return new Key(kind, (long) Math.floor(center.getY() / cellDegrees),
+                (long) Math.floor(center.getX() / cellDegrees), parameter);
+    }
+
+    /**
+     * Write version of the area within {@code spanKm} of the center's cell. Read it before running the
+     * query so a write that lands while the query runs invalidates the stored result.
+     */
+    public long version(Point center, double spanKm) {
+        double latitude = center.getY();
+        double latSpan = spanKm / GeoUtils.KM_PER_DEGREE_LATITUDE + cellDegrees;
+        double lonSpan = GeoUtils.longitudeSpan(latitude, spanKm) + cellDegrees;
+        long minRow = versionCell(latitude - latSpan);
+        long maxRow = versionCell(latitude + latSpan);
+        long minCol = versionCell(center.getX() - lonSpan);
+        long maxCol = versionCell(center.getX() + lonSpan);
+        if ((maxRow - minRow + 1) * (maxCol - minCol + 1) > MAX_VERSION_CELLS) {
+            return globalVersion.get();
+        }
+        // Versions only grow, so the sum changes whenever any cell in the area is written
+        long version = 0;
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long col = minCol; col <= maxCol; col++) {
+                version += versions.get(slot(row, col));
+            }
+        }
+        return version;
+    }
+
+    public GeoResults<String> get(Key key, long version) {
+        Entry entry = results.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version() != version) {
+            staleCount.incrementAndGet();
+            results.invalidate(key);
+            return null;
+        }
+        return entry.results();
+    }
+
+    public void put(Key key, GeoResults<String> nearby, long version) {
+        results.put(key, new Entry(nearby, version));
+    }
+
+    /**
+     * Records a location write so cached results covering the point are no longer served.
+     */
+    public void onWrite(double latitude, double longitude) {
+        if (!enabled) {
+            return;
+        }
+        versions.incrementAndGet(slot(versionCell(latitude), versionCell(longitude)));
+        globalVersion.incrementAndGet();
+    }
+
+    /**
+     * Drops every cached result that lists one of the drivers, so drivers that went OFF or were swept
+     * are not served for the rest of the TTL. Removals are far rarer than pings, so a scan of the
+     * small cache is cheaper than tracking their positions.
+     */
+    public void onRemove(Collection<String> driverIds) {
+        if (!enabled || driverIds.isEmpty()) {
+            return;
+        }
+        Set<String> removed = driverIds instanceof Set<String> set ? set : Set.copyOf(driverIds);
+        results.asMap().values().removeIf(entry -> entry.results().getContent().stream()
+                .anyMatch(result -> removed.contains(result.getContent())));
+    }
+
+    // Stale entries are found by Caffeine and rejected here, so they are reported as misses
+    public CacheStats getStats() {
+        CacheStats stats = results.stats();
+        long stale = Math.min(staleCount.get(), stats.hitCount());
+        return CacheStats.of(stats.hitCount() - stale, stats.missCount() + stale, stats.loadSuccessCount(),
+                stats.loadFailureCount(), stats.totalLoadTime(), stats.evictionCount(), stats.evictionWeight());
+    }
+
+    public long getSize() {
+        return results.estimatedSize();
+    }
+
+    private long versionCell(double degrees) {
+        return (long) Math.floor(degrees / versionCellDegrees);
+    }
+
+    private static int slot(long row, long col) {
+        long hash = row * 0x9E3779B97F4A7C15L + col;
+        return (int) (hash ^ (hash >>> 32)) & (VERSION_SLOTS - 1);
+    }
+
+    public record Key(String kind, long row, long col, double parameter) {
+    }
+
+    private record Entry(GeoResults<String> results, long version) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.driver_service.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coarse latitude/longitude grid used to shard the Redis geo index. Region ids look like
+ * {@code "<row>:<column>"} and become the hash tag of that region's keys.
+ */
+public class RegionGrid {
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+
+    public RegionGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180.0 / cellDegrees);
+        this.columns = (int) Math.ceil(360.0 / cellDegrees);
+    }
+
+    public String regionOf(double latitude, double longitude) {
+        return region(row(latitude), Math.floorMod(columnUnwrapped(longitude), columns));
+    }
+
+    /**
+     * Every region whose cell intersects the bounding box of the search circle.
+     */
+    public List<String> regionsWithin(double latitude, double longitude, double radiusKm) {
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE_LATITUDE;
+        double lonSpan = GeoUtils.longitudeSpan(latitude, radiusKm);
+        int minRow = row(latitude - latSpan);
+        int maxRow = row(latitude + latSpan);
+        int firstColumn = columnUnwrapped(longitude - lonSpan);
+        int lastColumn = Math.min(columnUnwrapped(longitude + lonSpan), firstColumn + columns - 1);
+
+        List<String> regions = new ArrayList<>((maxRow - minRow + 1) * (lastColumn - firstColumn + 1));
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                regions.add(region(r, Math.floorMod(c, columns)));
+            }
+        }
+        return regions;
+    }
+
+    private int row(double latitude) {
+        int row = (int) Math.floor((latitude + 90.0) / cellDegrees);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private int columnUnwrapped(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellDegrees);
+    }
+
+    private static String region(int row, int column) {
+        return row + ":" + column;
+    }
+}
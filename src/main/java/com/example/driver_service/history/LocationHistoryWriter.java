@@ -0,0 +1,149 @@
+package com.example.driver_service.history;
+
+import com.example.driver_service.logging.LogRingBuffer;
+import com.example.driver_service.model.DriverLocationHistory;
+import com.example.driver_service.properties.HistoryProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends driver pings to the {@code driver_location_history} time-series collection off the request path.
+ * Callers only enqueue into a lock-free ring buffer; a single background thread flushes unordered
+ * bulk inserts whenever a batch fills up or the flush interval elapses.
+ */
+@Component
+public class LocationHistoryWriter {
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MongoTemplate mongoTemplate;
+    private final HistoryProperties historyProperties;
+    private final LogRingBuffer<DriverLocationHistory> buffer;
+    private Thread worker;
+    private volatile boolean running = true;
+    private boolean collectionReady;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LocationHistoryWriter(MongoTemplate mongoTemplate, HistoryProperties historyProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.historyProperties = historyProperties;
+        this.buffer = new LogRingBuffer<>(historyProperties.getBufferSize());
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::drainLoop, "location-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void record(String driverId, double latitude, double longitude, long timestampMillis) {
+        if (!historyProperties.isEnabled()) {
+            return;
+        }
+        if (buffer.offer(new DriverLocationHistory(driverId, latitude, longitude, Instant.ofEpochMilli(timestampMillis)))) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        int batchSize = historyProperties.getBatchSize();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(historyProperties.getFlushIntervalMs());
+        List<DriverLocationHistory> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        while (running) {
+            fill(batch, batchSize);
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || (!batch.isEmpty() && now - lastFlush >= flushIntervalNanos)) {
+                flush(batch);
+                lastFlush = now;
+            } else {
+                LockSupport.parkNanos(Math.min(flushIntervalNanos, MAX_IDLE_NANOS));
+            }
+        }
+        // flush whatever is left on shutdown
+        do {
+            fill(batch, batchSize);
+            flush(batch);
+        } while (buffer.size() > 0);
+    }
+
+    private void fill(List<DriverLocationHistory> batch, int batchSize) {
+        DriverLocationHistory point;
+        while (batch.size() < batchSize && (point = buffer.poll()) != null) {
+            batch.add(point);
+        }
+    }
+
+    private void flush(List<DriverLocationHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            ensureCollection();
+            // Unordered so one rejected document does not stop the rest of the batch
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DriverLocationHistory.class)
+                    .insert(batch)
+                    .execute();
+            written.add(batch.size());
+        } catch (Exception e) {
+            failed.add(batch.size());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    // Time-series collections must be created explicitly before the first insert
+    private void ensureCollection() {
+        if (!collectionReady) {
+            if (!mongoTemplate.collectionExists(DriverLocationHistory.class)) {
+                mongoTemplate.createCollection(DriverLocationHistory.class);
+            }
+            collectionReady = true;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getQueueSize() {
+        return buffer.size();
+    }
+}
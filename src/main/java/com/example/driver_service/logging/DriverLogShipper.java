@@ -0,0 +1,203 @@
+package com.example.driver_service.logging;
+
+import com.example.driver_service.ENUM.LogLevel;
+import com.example.driver_service.properties.LogProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ships service logs to the {@code driver-logs} topic off the request path.
+ * Callers only filter, sample and enqueue into a lock-free ring buffer; a single background
+ * thread serializes records with one reusable generator and hands them to a dedicated
+ * producer that batches and compresses them. The thread starts once the bean is initialized; on
+ * shutdown it drains the buffer and the producer is flushed and closed.
+ */
+@Component
+public class DriverLogShipper {
+    private static final String SERVICE_NAME = "driver-service";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    // Only set when this shipper created the producer itself, so it also closes it
+    private final DefaultKafkaProducerFactory<String, String> producerFactory;
+    private final LogProperties logProperties;
+    private final LogRingBuffer<LogRecord> buffer;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final StringWriter writer = new StringWriter(256);
+    private Thread worker;
+    private volatile boolean running = true;
+
+    private final LongAdder shipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @Autowired
+    public DriverLogShipper(KafkaProperties kafkaProperties, LogProperties logProperties) {
+        this(new DefaultKafkaProducerFactory<>(producerConfig(kafkaProperties, logProperties)), logProperties);
+    }
+
+    DriverLogShipper(DefaultKafkaProducerFactory<String, String> producerFactory, LogProperties logProperties) {
+        this(new KafkaTemplate<>(producerFactory), producerFactory, logProperties);
+    }
+
+    public DriverLogShipper(KafkaTemplate<String, String> kafkaTemplate, LogProperties logProperties) {
+        this(kafkaTemplate, null, logProperties);
+    }
+
+    private DriverLogShipper(KafkaTemplate<String, String> kafkaTemplate,
+                             DefaultKafkaProducerFactory<String, String> producerFactory, LogProperties logProperties) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.producerFactory = producerFactory;
+        this.logProperties = logProperties;
+        this.buffer = new LogRingBuffer<>(logProperties.getBufferSize());
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::drainLoop, "driver-log-shipper");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static Map<String, Object> producerConfig(KafkaProperties kafkaProperties, LogProperties logProperties) {
+        Map<String, Object> config = kafkaProperties.buildProducerProperties(null);
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, logProperties.getCompressionType());
+        config.put(ProducerConfig.LINGER_MS_CONFIG, logProperties.getLingerMs());
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024);
+        return config;
+    }
+
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    public void info(String message) {
+        log(LogLevel.INFO, message);
+    }
+
+    public void warn(String message) {
+        log(LogLevel.WARN, message);
+    }
+
+    public void error(String message) {
+        log(LogLevel.ERROR, message);
+    }
+
+    public boolean isEnabled(LogLevel level) {
+        return level.compareTo(logProperties.getMinLevel()) >= 0;
+    }
+
+    public void log(LogLevel level, String message) {
+        if (!isEnabled(level)) {
+            filtered.increment();
+            return;
+        }
+        // Warnings and errors are never sampled away
+        double sampleRate = logProperties.getSampleRate();
+        if (level.compareTo(LogLevel.WARN) < 0 && sampleRate < 1.0
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filtered.increment();
+            return;
+        }
+        if (!buffer.offer(new LogRecord(level, message, System.currentTimeMillis()))) {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(logProperties.getFlushIntervalMs());
+        while (running) {
+            if (drainBatch() == 0) {
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+        while (drainBatch() > 0) {
+            // flush whatever is left on shutdown
+        }
+    }
+
+    private int drainBatch() {
+        int batchSize = logProperties.getBatchSize();
+        int count = 0;
+        LogRecord record;
+        while (count < batchSize && (record = buffer.poll()) != null) {
+            count++;
+            try {
+                kafkaTemplate.send(logProperties.getTopic(), serialize(record));
+                shipped.increment();
+            } catch (Exception e) {
+                failed.increment();
+            }
+        }
+        return count;
+    }
+
+    String serialize(LogRecord record) throws IOException {
+        writer.getBuffer().setLength(0);
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.writeStartObject();
+            generator.writeStringField("message", record.message());
+            generator.writeStringField("level", record.level().name());
+            generator.writeStringField("service_name", SERVICE_NAME);
+            generator.writeStringField("timestamp", Instant.ofEpochMilli(record.timestamp()).toString());
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        kafkaTemplate.flush();
+        if (producerFactory != null) {
+            producerFactory.destroy();
+        }
+    }
+
+    public long getShippedCount() {
+        return shipped.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getQueueSize() {
+        return buffer.size();
+    }
+
+    record LogRecord(LogLevel level, String message, long timestamp) {
+    }
+}
@@ -3,14 +3,19 @@ package com.example.driver_service.model;
 import com.example.driver_service.ENUM.Status;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
+@Document
 public class Driver {
     @Id
     private String id;
+    // Every lookup and status update filters on driverId, never on _id
+    @Indexed(unique = true)
     private String driverId;
-    private String latitude;
-    private String longitude;
+    private double latitude;
+    private double longitude;
     private Status status;
     private String detailLocation;
 }
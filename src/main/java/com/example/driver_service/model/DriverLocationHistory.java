@@ -0,0 +1,31 @@
+package com.example.driver_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = DriverLocationHistory.COLLECTION)
+@TimeSeries(timeField = "timestamp", metaField = "driverId", granularity = Granularity.SECONDS)
+public class DriverLocationHistory {
+    public static final String COLLECTION = "driver_location_history";
+
+    @Id
+    private String id;
+    private String driverId;
+    private double latitude;
+    private double longitude;
+    private Instant timestamp;
+
+    public DriverLocationHistory(String driverId, double latitude, double longitude, Instant timestamp) {
+        this(null, driverId, latitude, longitude, timestamp);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.driver_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DispatchProperties {
+    // Number of nearest drivers a trip is offered to
+    @Value("${driver.dispatch.candidate-count:10}")
+    private int candidateCount = 10;
+    @Value("${driver.dispatch.retry-attempts:3}")
+    private long retryAttempts = 3;
+    @Value("${driver.dispatch.retry-interval-ms:1000}")
+    private long retryIntervalMs = 1000;
+    @Value("${driver.dispatch.dead-letter-suffix:.DLT}")
+    private String deadLetterSuffix = ".DLT";
+    // How long an accepted trip stays claimed
+    @Value("${driver.dispatch.reservation-ttl-seconds:900}")
+    private long reservationTtlSeconds = 900;
+
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    public long getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    public long getRetryIntervalMs() {
+        return retryIntervalMs;
+    }
+
+    public String getDeadLetterSuffix() {
+        return deadLetterSuffix;
+    }
+
+    public long getReservationTtlSeconds() {
+        return reservationTtlSeconds;
+    }
+}
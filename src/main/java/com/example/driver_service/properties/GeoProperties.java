@@ -0,0 +1,185 @@
+package com.example.driver_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class GeoProperties {
+    public static final String ENGINE_REDIS = "redis";
+    public static final String ENGINE_MEMORY = "memory";
+
+    // memory is single-replica only: the grid never sees pings handled by other replicas
+    @Value("${driver.geo.engine:redis}")
+    private String engine = ENGINE_REDIS;
+    @Value("${driver.geo.grid-cell-degrees:0.01}")
+    private double gridCellDegrees = 0.01;
+    // Size of the regions the Redis geo index is sharded into; about 111 km per degree of latitude
+    @Value("${driver.geo.region-cell-degrees:1.0}")
+    private double regionCellDegrees = 1.0;
+    // How often each node re-reads active_regions to refresh the regions it skips registering
+    @Value("${driver.geo.region-refresh-interval-ms:30000}")
+    private long regionRefreshIntervalMs = 30000;
+    @Value("${driver.geo.stale-after-seconds:300}")
+    private long staleAfterSeconds = 300;
+    // 0 disables the freshness filter on nearby queries
+    @Value("${driver.geo.max-age-seconds:0}")
+    private long maxAgeSeconds = 0;
+    @Value("${driver.geo.sweep-batch-size:500}")
+    private int sweepBatchSize = 500;
+    // Pings closer than min-move-meters to the last written position are not written again until
+    // max-write-interval-seconds have passed; 0 for either disables the filter
+    @Value("${driver.geo.min-move-meters:15}")
+    private double minMoveMeters = 15;
+    @Value("${driver.geo.max-write-interval-seconds:60}")
+    private long maxWriteIntervalSeconds = 60;
+    // k-nearest search starts at the initial radius and multiplies it by the growth factor up to the max
+    @Value("${driver.geo.nearest-initial-radius-km:1.0}")
+    private double nearestInitialRadiusKm = 1.0;
+    @Value("${driver.geo.nearest-max-radius-km:10.0}")
+    private double nearestMaxRadiusKm = 10.0;
+    @Value("${driver.geo.nearest-radius-growth-factor:2.0}")
+    private double nearestRadiusGrowthFactor = 2.0;
+    // Nearby results are cached per cache-cell-degrees cell for ttl-ms (0 disables the cache) and dropped
+    // early when a driver is written inside their search area, tracked in version-cell-degrees cells.
+    // Only this node's writes invalidate, so with several replicas results can lag by up to ttl-ms
+    @Value("${driver.geo.nearby-cache-ttl-ms:1000}")
+    private long nearbyCacheTtlMs = 1000;
+    @Value("${driver.geo.nearby-cache-max-size:10000}")
+    private long nearbyCacheMaxSize = 10000;
+    @Value("${driver.geo.nearby-cache-cell-degrees:0.001}")
+    private double nearbyCacheCellDegrees = 0.001;
+    @Value("${driver.geo.nearby-cache-version-cell-degrees:0.05}")
+    private double nearbyCacheVersionCellDegrees = 0.05;
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public void setEngine(String engine) {
+        this.engine = engine;
+    }
+
+    public boolean isMemoryEngine() {
+        return ENGINE_MEMORY.equalsIgnoreCase(engine);
+    }
+
+    public double getGridCellDegrees() {
+        return gridCellDegrees;
+    }
+
+    public void setGridCellDegrees(double gridCellDegrees) {
+        this.gridCellDegrees = gridCellDegrees;
+    }
+
+    public double getRegionCellDegrees() {
+        return regionCellDegrees;
+    }
+
+    public void setRegionCellDegrees(double regionCellDegrees) {
+        this.regionCellDegrees = regionCellDegrees;
+    }
+
+    public long getRegionRefreshIntervalMs() {
+        return regionRefreshIntervalMs;
+    }
+
+    public void setRegionRefreshIntervalMs(long regionRefreshIntervalMs) {
+        this.regionRefreshIntervalMs = regionRefreshIntervalMs;
+    }
+
+    public long getStaleAfterSeconds() {
+        return staleAfterSeconds;
+    }
+
+    public void setStaleAfterSeconds(long staleAfterSeconds) {
+        this.staleAfterSeconds = staleAfterSeconds;
+    }
+
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public void setMaxAgeSeconds(long maxAgeSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    public int getSweepBatchSize() {
+        return sweepBatchSize;
+    }
+
+    public void setSweepBatchSize(int sweepBatchSize) {
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public double getNearestInitialRadiusKm() {
+        return nearestInitialRadiusKm;
+    }
+
+    public void setNearestInitialRadiusKm(double nearestInitialRadiusKm) {
+        this.nearestInitialRadiusKm = nearestInitialRadiusKm;
+    }
+
+    public double getNearestMaxRadiusKm() {
+        return nearestMaxRadiusKm;
+    }
+
+    public void setNearestMaxRadiusKm(double nearestMaxRadiusKm) {
+        this.nearestMaxRadiusKm = nearestMaxRadiusKm;
+    }
+
+    public double getNearestRadiusGrowthFactor() {
+        return nearestRadiusGrowthFactor;
+    }
+
+    public void setNearestRadiusGrowthFactor(double nearestRadiusGrowthFactor) {
+        this.nearestRadiusGrowthFactor = nearestRadiusGrowthFactor;
+    }
+
+    public double getMinMoveMeters() {
+        return minMoveMeters;
+    }
+
+    public void setMinMoveMeters(double minMoveMeters) {
+        this.minMoveMeters = minMoveMeters;
+    }
+
+    public long getMaxWriteIntervalSeconds() {
+        return maxWriteIntervalSeconds;
+    }
+
+    public void setMaxWriteIntervalSeconds(long maxWriteIntervalSeconds) {
+        this.maxWriteIntervalSeconds = maxWriteIntervalSeconds;
+    }
+
+    public long getNearbyCacheTtlMs() {
+        return nearbyCacheTtlMs;
+    }
+
+    public void setNearbyCacheTtlMs(long nearbyCacheTtlMs) {
+        this.nearbyCacheTtlMs = nearbyCacheTtlMs;
+    }
+
+    public long getNearbyCacheMaxSize() {
+        return nearbyCacheMaxSize;
+    }
+
+    public void setNearbyCacheMaxSize(long nearbyCacheMaxSize) {
+        this.nearbyCacheMaxSize = nearbyCacheMaxSize;
+    }
+
+    public double getNearbyCacheCellDegrees() {
+        return nearbyCacheCellDegrees;
+    }
+
+    public void setNearbyCacheCellDegrees(double nearbyCacheCellDegrees) {
+        this.nearbyCacheCellDegrees = nearbyCacheCellDegrees;
+    }
+
+    public double getNearbyCacheVersionCellDegrees() {
+        return nearbyCacheVersionCellDegrees;
+    }
+
+    public void setNearbyCacheVersionCellDegrees(double nearbyCacheVersionCellDegrees) {
+        this.nearbyCacheVersionCellDegrees = nearbyCacheVersionCellDegrees;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.driver_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HeatmapProperties {
+    // Off by default: every location write then also costs a heatmap update in the next flush
+    @Value("${driver.heatmap.enabled:false}")
+    private boolean enabled = false;
+    // Geohash length of a heatmap cell; 6 is about 1.2 x 0.6 km
+    @Value("${driver.heatmap.precision:6}")
+    private int precision = 6;
+    // Trip requests are counted in buckets of demand-bucket-seconds and kept for demand-window-buckets
+    @Value("${driver.heatmap.demand-bucket-seconds:60}")
+    private long demandBucketSeconds = 60;
+    @Value("${driver.heatmap.demand-window-buckets:15}")
+    private int demandWindowBuckets = 15;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public void setPrecision(int precision) {
+        this.precision = precision;
+    }
+
+    public long getDemandBucketSeconds() {
+        return demandBucketSeconds;
+    }
+
+    public void setDemandBucketSeconds(long demandBucketSeconds) {
+        this.demandBucketSeconds = demandBucketSeconds;
+    }
+
+    public int getDemandWindowBuckets() {
+        return demandWindowBuckets;
+    }
+
+    public void setDemandWindowBuckets(int demandWindowBuckets) {
+        this.demandWindowBuckets = demandWindowBuckets;
+    }
+}
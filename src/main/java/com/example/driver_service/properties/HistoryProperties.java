@@ -0,0 +1,48 @@
+package com.example.driver_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class HistoryProperties {
+    @Value("${driver.history.enabled:true}")
+    private boolean enabled = true;
+    @Value("${driver.history.buffer-size:65536}")
+    private int bufferSize = 65536;
+    @Value("${driver.history.batch-size:1000}")
+    private int batchSize = 1000;
+    @Value("${driver.history.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+}
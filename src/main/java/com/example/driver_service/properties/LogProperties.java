@@ -0,0 +1,69 @@
+package com.example.driver_service.properties;
+
+import com.example.driver_service.ENUM.LogLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LogProperties {
+    @Value("${driver.logs.topic:driver-logs}")
+    private String topic = "driver-logs";
+    @Value("${driver.logs.min-level:DEBUG}")
+    private LogLevel minLevel = LogLevel.DEBUG;
+    @Value("${driver.logs.sample-rate:1.0}")
+    private double sampleRate = 1.0;
+    @Value("${driver.logs.buffer-size:8192}")
+    private int bufferSize = 8192;
+    @Value("${driver.logs.batch-size:512}")
+    private int batchSize = 512;
+    @Value("${driver.logs.flush-interval-ms:20}")
+    private long flushIntervalMs = 20;
+    @Value("${driver.logs.linger-ms:50}")
+    private int lingerMs = 50;
+    @Value("${driver.logs.compression-type:lz4}")
+    private String compressionType = "lz4";
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public LogLevel getMinLevel() {
+        return minLevel;
+    }
+
+    public void setMinLevel(LogLevel minLevel) {
+        this.minLevel = minLevel;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public int getLingerMs() {
+        return lingerMs;
+    }
+
+    public String getCompressionType() {
+        return compressionType;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.driver_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserProfileProperties {
+    @Value("${user.profile.cache.max-size:10000}")
+    private long cacheMaxSize = 10000;
+    @Value("${user.profile.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds = 300;
+    // 0 disables stale-while-revalidate
+    @Value("${user.profile.cache.refresh-after-seconds:60}")
+    private long cacheRefreshAfterSeconds = 60;
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public long getCacheRefreshAfterSeconds() {
+        return cacheRefreshAfterSeconds;
+    }
+
+    public void setCacheRefreshAfterSeconds(long cacheRefreshAfterSeconds) {
+        this.cacheRefreshAfterSeconds = cacheRefreshAfterSeconds;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.driver_service.properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WebSocketProperties {
+    @Value("${driver.ws.allowed-origins:*}")
+    private String[] allowedOrigins = {"*"};
+    @Value("${driver.ws.queue-capacity:16}")
+    private int queueCapacity = 16;
+    @Value("${driver.ws.send-threads:8}")
+    private int sendThreads = 8;
+    @Value("${driver.ws.send-timeout-ms:5000}")
+    private long sendTimeoutMs = 5000;
+
+    public String[] getAllowedOrigins() {
+        return allowedOrigins;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getSendThreads() {
+        return sendThreads;
+    }
+
+    public long getSendTimeoutMs() {
+        return sendTimeoutMs;
+    }
+}
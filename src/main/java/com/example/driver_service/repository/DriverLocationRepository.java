@@ -0,0 +1,656 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.ENUM.Status;
+import com.example.driver_service.geo.RegionGrid;
+import com.example.driver_service.properties.GeoProperties;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.data.redis.domain.geo.GeoShape;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis geo index of available drivers, sharded by {@link RegionGrid} region. Each region has its own
+ * keys, hash-tagged with the region id so the Lua scripts below only ever touch one cluster slot:
+ * <ul>
+ *     <li>{@code active_drivers:{region}}: positions of drivers that can be dispatched</li>
+ *     <li>{@code offline_drivers:{region}}: last known positions of drivers that went OFF</li>
+ *     <li>{@code active_drivers_last_seen:{region}}: sorted set of the last ping time (epoch millis) per active driver</li>
+ * </ul>
+ * {@code driver_region:<driverId>} remembers the region a driver was last written to, and
+ * {@code active_regions} lists every region that has ever held a driver. Searches derive their regions
+ * from the circle alone; active_regions is what the sweeper, the grid warm-up and the active count walk.
+ */
+@Timed(value = "driver.redis", histogram = true)
+@Repository
+public class DriverLocationRepository {
+    public static final String ACTIVE_DRIVERS_KEY = "active_drivers";
+    public static final String OFFLINE_DRIVERS_KEY = "offline_drivers";
+    public static final String LAST_SEEN_KEY = "active_drivers_last_seen";
+    public static final String REGIONS_KEY = "active_regions";
+    public static final String DRIVER_REGION_KEY_PREFIX = "driver_region:";
+
+    // Geo sets are sorted sets, so copying the score moves the member without decoding its geohash
+    private static final RedisScript<Long> PARK_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('ZSCORE', KEYS[1], ARGV[1]) "
+                    + "redis.call('ZREM', KEYS[3], ARGV[1]) "
+                    + "if score then "
+                    + "redis.call('ZADD', KEYS[2], score, ARGV[1]) "
+                    + "redis.call('ZREM', KEYS[1], ARGV[1]) "
+                    + "return 1 end "
+                    + "return 0",
+            Long.class);
+    private static final RedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('ZSCORE', KEYS[1], ARGV[1]) "
+                    + "if score then "
+                    + "redis.call('ZADD', KEYS[2], score, ARGV[1]) "
+                    + "redis.call('ZREM', KEYS[1], ARGV[1]) "
+                    + "redis.call('ZADD', KEYS[3], ARGV[2], ARGV[1]) "
+                    + "return 1 end "
+                    + "return 0",
+            Long.class);
+    // Re-checks the cutoff inside the script so a driver that pinged during the sweep is never removed
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List> SWEEP_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) "
+                    + "if #ids > 0 then "
+                    + "redis.call('ZREM', KEYS[1], unpack(ids)) "
+                    + "redis.call('ZREM', KEYS[2], unpack(ids)) "
+                    + "end "
+                    + "return ids",
+            List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final GeoProperties geoProperties;
+    private final RegionGrid regionGrid;
+    // Regions known to be in active_regions, so the shared set is not written on every ping. Re-read
+    // from Redis every region-refresh-interval-ms so a region dropped from the set is registered again
+    private final Set<String> knownRegions = ConcurrentHashMap.newKeySet();
+    private volatile long regionsRefreshedAt;
+
+    public DriverLocationRepository(RedisTemplate<String, String> redisTemplate, GeoProperties geoProperties) {
+        this.redisTemplate = redisTemplate;
+        this.geoProperties = geoProperties;
+        this.regionGrid = new RegionGrid(geoProperties.getRegionCellDegrees());
+    }
+
+    public static String activeKey(String region) {
+        return ACTIVE_DRIVERS_KEY + ":{" + region + "}";
+    }
+
+    public static String offlineKey(String region) {
+        return OFFLINE_DRIVERS_KEY + ":{" + region + "}";
+    }
+
+    public static String lastSeenKey(String region) {
+        return LAST_SEEN_KEY + ":{" + region + "}";
+    }
+
+    /**
+     * Writes the position and last-seen time of one driver in a single pipelined round trip.
+     */
+    public void save(String driverId, Point point) {
+        saveAll(Map.of(driverId, point));
+    }
+
+    /**
+     * Writes many positions with one GEOADD and one ZADD per region, pipelined together with the
+     * driver's region pointer and, when due, a re-read of active_regions. Drivers that crossed into
+     * another region are then removed from the old one.
+     */
+    @SuppressWarnings("unchecked")
+    public void saveAll(Map<String, Point> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        double now = nowMillis;
+        boolean refreshRegions = nowMillis - regionsRefreshedAt >= geoProperties.getRegionRefreshIntervalMs();
+        List<String> driverIds = new ArrayList<>(points.keySet());
+        List<String> regions = new ArrayList<>(driverIds.size());
+        Map<String, Map<String, Point>> pointsByRegion = new LinkedHashMap<>();
+        Map<String, Set<TypedTuple<String>>> lastSeenByRegion = new LinkedHashMap<>();
+        for (String driverId : driverIds) {
+            Point point = points.get(driverId);
+            String region = regionGrid.regionOf(point.getY(), point.getX());
+            regions.add(region);
+            pointsByRegion.computeIfAbsent(region, r -> new LinkedHashMap<>()).put(driverId, point);
+            lastSeenByRegion.computeIfAbsent(region, r -> new HashSet<>()).add(TypedTuple.of(driverId, now));
+        }
+        List<String> newRegions = pointsByRegion.keySet().stream().filter(r -> !knownRegions.contains(r)).toList();
+
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (int i = 0; i < driverIds.size(); i++) {
+                    ops.opsForValue().getAndSet(DRIVER_REGION_KEY_PREFIX + driverIds.get(i), regions.get(i));
+                }
+                pointsByRegion.forEach((region, regionPoints) -> {
+                    ops.opsForGeo().add(activeKey(region), regionPoints);
+                    ops.opsForZSet().add(lastSeenKey(region), lastSeenByRegion.get(region));
+                });
+                if (!newRegions.isEmpty()) {
+                    ops.opsForSet().add(REGIONS_KEY, newRegions.toArray(new String[0]));
+                }
+                if (refreshRegions) {
+                    ops.opsForSet().members(REGIONS_KEY);
+                }
+                return null;
+            }
+        });
+        knownRegions.addAll(newRegions);
+        if (refreshRegions && !replies.isEmpty() && replies.get(replies.size() - 1) instanceof Set<?> members) {
+            knownRegions.retainAll(members);
+            knownRegions.addAll((Set<String>) members);
+            regionsRefreshedAt = nowMillis;
+        }
+
+        Map<String, String> moved = new LinkedHashMap<>();
+        for (int i = 0; i < driverIds.size() && i < replies.size(); i++) {
+            Object previous = replies.get(i);
+            if (previous != null && !previous.equals(regions.get(i))) {
+                moved.put(driverIds.get(i), (String) previous);
+            }
+        }
+        if (!moved.isEmpty()) {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    moved.forEach((driverId, oldRegion) -> {
+                        ops.opsForZSet().remove(activeKey(oldRegion), driverId);
+                        ops.opsForZSet().remove(lastSeenKey(oldRegion), driverId);
+                    });
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Moves the driver to its region's offline set, keeping the last known position.
+     *
+     * @return true if the driver was in active_drivers
+     */
+    public boolean park(String driverId) {
+        String region = regionOf(driverId);
+        if (region == null) {
+            return false;
+        }
+        Long moved = redisTemplate.execute(PARK_SCRIPT,
+                List.of(activeKey(region), offlineKey(region), lastSeenKey(region)), driverId);
+        return moved != null && moved == 1;
+    }
+
+    /**
+     * Moves the driver back to active_drivers at the position parked by {@link #park}.
+     *
+     * @return true if a parked position existed
+     */
+    public boolean restore(String driverId) {
+        String region = regionOf(driverId);
+        if (region == null) {
+            return false;
+        }
+        Long moved = redisTemplate.execute(RESTORE_SCRIPT,
+                List.of(offlineKey(region), activeKey(region), lastSeenKey(region)),
+                driverId, String.valueOf(System.currentTimeMillis()));
+        return moved != null && moved == 1;
+    }
+
+    /**
+     * Parks the drivers switched OFF and restores the drivers switched ON with one MGET of their
+     * regions and one pipelined round trip of the park/restore scripts. Drivers that never reported
+     * a location are skipped.
+     *
+     * @return the drivers switched ON that had a parked position and are active again
+     */
+    public Set<String> updateMembership(Map<String, Status> statuses) {
+        List<String> driverIds = new ArrayList<>(statuses.keySet());
+        Map<String, List<Integer>> indexesByRegion = indexesByRegion(driverIds);
+        if (indexesByRegion.isEmpty()) {
+            return Set.of();
+        }
+        String now = String.valueOf(System.currentTimeMillis());
+        List<String> ordered = new ArrayList<>(driverIds.size());
+        indexesByRegion.values().forEach(indexes -> indexes.forEach(i -> ordered.add(driverIds.get(i))));
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                indexesByRegion.forEach((region, indexes) -> {
+                    for (int i : indexes) {
+                        String driverId = driverIds.get(i);
+                        if (statuses.get(driverId) == Status.OFF) {
+                            ops.execute(PARK_SCRIPT, List.of(activeKey(region), offlineKey(region), lastSeenKey(region)),
+                                    driverId);
+                        } else {
+                            ops.execute(RESTORE_SCRIPT, List.of(offlineKey(region), activeKey(region), lastSeenKey(region)),
+                                    driverId, now);
+                        }
+                    }
+                });
+                return null;
+            }
+        });
+        Set<String> restored = new HashSet<>();
+        for (int i = 0; i < ordered.size() && i < replies.size(); i++) {
+            String driverId = ordered.get(i);
+            if (statuses.get(driverId) == Status.ON && Long.valueOf(1L).equals(replies.get(i))) {
+                restored.add(driverId);
+            }
+        }
+        return restored;
+    }
+
+    public Point position(String driverId) {
+        String region = regionOf(driverId);
+        if (region == null) {
+            return null;
+        }
+        List<Point> positions = redisTemplate.opsForGeo().position(activeKey(region), driverId);
+        return positions != null && !positions.isEmpty() ? positions.get(0) : null;
+    }
+
+    private String regionOf(String driverId) {
+        return redisTemplate.opsForValue().get(DRIVER_REGION_KEY_PREFIX + driverId);
+    }
+
+    /**
+     * Drivers inside the circle, nearest first, merged across every region the circle touches.
+     */
+    public GeoResults<GeoLocation<String>> radius(Circle circle) {
+        return radiusAll(List.of(circle)).get(0);
+    }
+
+    /**
+     * Runs one radius query per circle, fanned out to the regions each circle touches, in a single
+     * pipelined round trip.
+     *
+     * @return results in the same order as {@code circles}
+     */
+    public List<GeoResults<GeoLocation<String>>> radiusAll(List<Circle> circles) {
+        if (circles.isEmpty()) {
+            return List.of();
+        }
+        List<Point> centers = new ArrayList<>(circles.size());
+        List<Double> radii = new ArrayList<>(circles.size());
+        for (Circle circle : circles) {
+            centers.add(circle.getCenter());
+            radii.add(circle.getRadius().in(Metrics.KILOMETERS).getValue());
+        }
+        return search(centers, radii, null);
+    }
+
+    /**
+     * Runs {@code GEOSEARCH ... BYRADIUS ... ASC COUNT limit WITHDIST} for every center and every region
+     * its circle touches in a single pipelined round trip, then merges the regions of each center so
+     * each result holds at most {@code limit} drivers sorted nearest first.
+     *
+     * @return results in the same order as {@code centers}
+     */
+    public List<GeoResults<GeoLocation<String>>> searchNearest(List<Point> centers, double radiusKm, int limit) {
+        if (centers.isEmpty()) {
+            return List.of();
+        }
+        List<Double> radii = new ArrayList<>(centers.size());
+        for (int i = 0; i < centers.size(); i++) {
+            radii.add(radiusKm);
+        }
+        return search(centers, radii, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GeoResults<GeoLocation<String>>> search(List<Point> centers, List<Double> radiiKm, Integer limit) {
+        List<List<String>> regionsPerCenter = new ArrayList<>(centers.size());
+        for (int i = 0; i < centers.size(); i++) {
+            Point center = centers.get(i);
+            regionsPerCenter.add(regionGrid.regionsWithin(center.getY(), center.getX(), radiiKm.get(i)));
+        }
+        GeoSearchCommandArgs args = GeoSearchCommandArgs.newGeoSearchArgs().includeDistance().sortAscending();
+        if (limit != null) {
+            args = args.limit(limit);
+        }
+        GeoSearchCommandArgs searchArgs = args;
+        List<Object> raw = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < centers.size(); i++) {
+                GeoShape shape = GeoShape.byRadius(new Distance(radiiKm.get(i), Metrics.KILOMETERS));
+                GeoReference<byte[]> reference = GeoReference.fromCoordinate(centers.get(i));
+                for (String region : regionsPerCenter.get(i)) {
+                    connection.geoCommands().geoSearch(
+                            activeKey(region).getBytes(StandardCharsets.UTF_8), reference, shape, searchArgs);
+                }
+            }
+            return null;
+        });
+
+        // Pipelined geo replies are not deserialized by the template, so member names are still raw bytes
+        List<GeoResults<GeoLocation<String>>> results = new ArrayList<>(centers.size());
+        int reply = 0;
+        for (List<String> regions : regionsPerCenter) {
+            List<GeoResult<GeoLocation<String>>> merged = new ArrayList<>();
+            for (int r = 0; r < regions.size(); r++) {
+                decode((GeoResults<GeoLocation<byte[]>>) raw.get(reply++), merged);
+            }
+            if (regions.size() > 1) {
+                merged.sort(Comparator.comparingDouble(result -> result.getDistance().getValue()));
+            }
+            if (limit != null && merged.size() > limit) {
+                merged = new ArrayList<>(merged.subList(0, limit));
+            }
+            results.add(new GeoResults<>(merged, Metrics.KILOMETERS));
+        }
+        return results;
+    }
+
+    private static void decode(GeoResults<GeoLocation<byte[]>> reply, List<GeoResult<GeoLocation<String>>> out) {
+        if (reply == null) {
+            return;
+        }
+        for (GeoResult<GeoLocation<byte[]>> result : reply.getContent()) {
+            GeoLocation<byte[]> location = result.getContent();
+            out.add(new GeoResult<>(
+                    new GeoLocation<>(new String(location.getName(), StandardCharsets.UTF_8), location.getPoint()),
+                    result.getDistance()));
+        }
+    }
+
+    /**
+     * Current position of each driver (null if unknown), in the same order as {@code driverIds}.
+     * Looks up the drivers' regions with one MGET, then reads GEOPOS from each region's active and
+     * offline sets in a pipeline, so drivers that went OFF still report their last known position.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Point> positions(List<String> driverIds) {
+        Map<String, List<Integer>> indexesByRegion = indexesByRegion(driverIds);
+
+        List<Point> positions = new ArrayList<>(driverIds.size());
+        for (int i = 0; i < driverIds.size(); i++) {
+            positions.add(null);
+        }
+        if (indexesByRegion.isEmpty()) {
+            return positions;
+        }
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                indexesByRegion.forEach((region, indexes) -> {
+                    String[] members = indexes.stream().map(driverIds::get).toArray(String[]::new);
+                    ops.opsForGeo().position(activeKey(region), members);
+                    ops.opsForGeo().position(offlineKey(region), members);
+                });
+                return null;
+            }
+        });
+        int reply = 0;
+        for (List<Integer> indexes : indexesByRegion.values()) {
+            List<Point> active = (List<Point>) replies.get(reply++);
+            List<Point> offline = (List<Point>) replies.get(reply++);
+            for (int j = 0; j < indexes.size(); j++) {
+                Point point = active != null ? active.get(j) : null;
+                if (point == null && offline != null) {
+                    point = offline.get(j);
+                }
+                positions.set(indexes.get(j), point);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Last ping time of each driver (epoch millis, null if unknown), in the same order as {@code driverIds}.
+     * Looks up the drivers' regions with one MGET, then reads one ZMSCORE per region in a pipeline.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Double> lastSeen(List<String> driverIds) {
+        Map<String, List<Integer>> indexesByRegion = indexesByRegion(driverIds);
+
+        List<Double> lastSeen = new ArrayList<>(driverIds.size());
+        for (int i = 0; i < driverIds.size(); i++) {
+            lastSeen.add(null);
+        }
+        if (indexesByRegion.isEmpty()) {
+            return lastSeen;
+        }
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                indexesByRegion.forEach((region, indexes) -> ops.opsForZSet().score(lastSeenKey(region),
+                        indexes.stream().map(driverIds::get).toArray()));
+                return null;
+            }
+        });
+        int reply = 0;
+        for (List<Integer> indexes : indexesByRegion.values()) {
+            List<Double> scores = (List<Double>) replies.get(reply++);
+            for (int j = 0; j < indexes.size(); j++) {
+                lastSeen.set(indexes.get(j), scores != null ? scores.get(j) : null);
+            }
+        }
+        return lastSeen;
+    }
+
+    /**
+     * Groups the positions of {@code driverIds} by the region each driver was last written to,
+     * reading every region pointer with one MGET. Drivers without a region are left out.
+     */
+    private Map<String, List<Integer>> indexesByRegion(List<String> driverIds) {
+        List<String> regionKeys = new ArrayList<>(driverIds.size());
+        for (String driverId : driverIds) {
+            regionKeys.add(DRIVER_REGION_KEY_PREFIX + driverId);
+        }
+        List<String> regions = redisTemplate.opsForValue().multiGet(regionKeys);
+        Map<String, List<Integer>> indexesByRegion = new LinkedHashMap<>();
+        for (int i = 0; i < driverIds.size(); i++) {
+            String region = regions != null ? regions.get(i) : null;
+            if (region != null) {
+                indexesByRegion.computeIfAbsent(region, r -> new ArrayList<>()).add(i);
+            }
+        }
+        return indexesByRegion;
+    }
+
+    /**
+     * Removes up to {@code limit} drivers whose last ping is at or before {@code cutoffMillis},
+     * walking the regions one script call at a time.
+     *
+     * @return the removed driver ids
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> removeStale(long cutoffMillis, int limit) {
+        List<String> removed = new ArrayList<>();
+        for (String region : regions()) {
+            int remaining = limit - removed.size();
+            if (remaining <= 0) {
+                break;
+            }
+            List<String> ids = redisTemplate.execute(SWEEP_SCRIPT, List.of(activeKey(region), lastSeenKey(region)),
+                    String.valueOf(cutoffMillis), String.valueOf(remaining));
+            if (ids != null) {
+                removed.addAll(ids);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Every active driver pinged at or after {@code cutoffMillis}, with its position and last ping time,
+     * read with one ZRANGEBYSCORE and one GEOPOS per region. Used to warm the in-memory grid on startup.
+     */
+    public List<ActiveDriver> activeSince(long cutoffMillis) {
+        List<ActiveDriver> drivers = new ArrayList<>();
+        for (String region : regions()) {
+            Set<TypedTuple<String>> seen = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(lastSeenKey(region), cutoffMillis, Double.POSITIVE_INFINITY);
+            if (seen == null || seen.isEmpty()) {
+                continue;
+            }
+            List<TypedTuple<String>> tuples = new ArrayList<>(seen);
+            String[] driverIds = tuples.stream().map(TypedTuple::getValue).toArray(String[]::new);
+            List<Point> points = redisTemplate.opsForGeo().position(activeKey(region), driverIds);
+            for (int i = 0; points != null && i < points.size(); i++) {
+                if (points.get(i) != null) {
+                    drivers.add(new ActiveDriver(driverIds[i], points.get(i), tuples.get(i).getScore().longValue()));
+                }
+            }
+        }
+        return drivers;
+    }
+
+    /**
+     * One-shot move of the unsharded {@code active_drivers}, {@code offline_drivers} and
+     * {@code active_drivers_last_seen} keys written before the index was sharded into their regions,
+     * {@code batchSize} drivers at a time, then deletes them. A driver that already has a region
+     * pointer has pinged since and is skipped, and members are added with ZADD NX, so a fresh
+     * position is never overwritten and several nodes can run this at once.
+     *
+     * @return the number of drivers moved
+     */
+    public int migrateUnsharded(int batchSize) {
+        Long legacyKeys = redisTemplate.countExistingKeys(List.of(ACTIVE_DRIVERS_KEY, OFFLINE_DRIVERS_KEY, LAST_SEEN_KEY));
+        if (legacyKeys == null || legacyKeys == 0) {
+            return 0;
+        }
+        int migrated = migrateUnsharded(ACTIVE_DRIVERS_KEY, true, batchSize)
+                + migrateUnsharded(OFFLINE_DRIVERS_KEY, false, batchSize);
+        redisTemplate.delete(List.of(ACTIVE_DRIVERS_KEY, OFFLINE_DRIVERS_KEY, LAST_SEEN_KEY));
+        return migrated;
+    }
+
+    private int migrateUnsharded(String legacyKey, boolean active, int batchSize) {
+        Long size = redisTemplate.opsForZSet().zCard(legacyKey);
+        int migrated = 0;
+        for (long start = 0; size != null && start < size; start += batchSize) {
+            Set<TypedTuple<String>> page = redisTemplate.opsForZSet().rangeWithScores(legacyKey, start, start + batchSize - 1);
+            if (page == null || page.isEmpty()) {
+                break;
+            }
+            List<TypedTuple<String>> tuples = new ArrayList<>(page);
+            String[] driverIds = tuples.stream().map(TypedTuple::getValue).toArray(String[]::new);
+            List<Point> points = redisTemplate.opsForGeo().position(legacyKey, driverIds);
+            List<Double> lastSeen = active ? redisTemplate.opsForZSet().score(LAST_SEEN_KEY, (Object[]) driverIds) : null;
+            List<Integer> movable = new ArrayList<>(driverIds.length);
+            List<String> regions = new ArrayList<>(driverIds.length);
+            for (int i = 0; points != null && i < driverIds.length; i++) {
+                Point point = points.get(i);
+                if (point != null) {
+                    movable.add(i);
+                    regions.add(regionGrid.regionOf(point.getY(), point.getX()));
+                }
+            }
+            if (movable.isEmpty()) {
+                continue;
+            }
+            // Claiming the region pointer first leaves drivers that pinged since on their new keys
+            List<Object> claimed = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (int j = 0; j < movable.size(); j++) {
+                        ops.opsForValue().setIfAbsent(DRIVER_REGION_KEY_PREFIX + driverIds[movable.get(j)], regions.get(j));
+                    }
+                    return null;
+                }
+            });
+            List<Integer> moved = new ArrayList<>(movable.size());
+            for (int j = 0; j < movable.size() && j < claimed.size(); j++) {
+                if (Boolean.TRUE.equals(claimed.get(j))) {
+                    moved.add(j);
+                }
+            }
+            if (moved.isEmpty()) {
+                continue;
+            }
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    Set<String> touched = new HashSet<>();
+                    for (int j : moved) {
+                        int i = movable.get(j);
+                        String region = regions.get(j);
+                        String driverId = driverIds[i];
+                        ops.opsForZSet().addIfAbsent(active ? activeKey(region) : offlineKey(region),
+                                driverId, tuples.get(i).getScore());
+                        Double seen = lastSeen != null ? lastSeen.get(i) : null;
+                        if (active) {
+                            // A driver without a legacy ping time counts as stale and goes on the next sweep
+                            ops.opsForZSet().addIfAbsent(lastSeenKey(region), driverId, seen != null ? seen : 0);
+                        }
+                        touched.add(region);
+                    }
+                    ops.opsForSet().add(REGIONS_KEY, touched.toArray(new String[0]));
+                    return null;
+                }
+            });
+            migrated += moved.size();
+        }
+        return migrated;
+    }
+
+    public long countActive() {
+        Set<String> regions = regions();
+        if (regions.isEmpty()) {
+            return 0;
+        }
+        List<Object> sizes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                regions.forEach(region -> ops.opsForZSet().zCard(activeKey(region)));
+                return null;
+            }
+        });
+        long total = 0;
+        for (Object size : sizes) {
+            if (size instanceof Long count) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    private Set<String> regions() {
+        Set<String> regions = redisTemplate.opsForSet().members(REGIONS_KEY);
+        return regions != null ? regions : Set.of();
+    }
+
+    public record ActiveDriver(String driverId, Point point, long lastSeenMillis) {
+    }
+}
@@ -2,7 +2,18 @@ package com.example.driver_service.repository;
 
 import com.example.driver_service.model.Driver;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface DriverRepository extends MongoRepository<Driver, String> {
-    Driver findByDriverId(String driverId);
+import java.util.Collection;
+import java.util.List;
+
+public interface DriverRepository extends MongoRepository<Driver, String>, DriverRepositoryCustom {
+    // Only the static fields; the live position comes from the geo index
+    @Query(value = "{ 'driverId': ?0 }", fields = "{ 'driverId': 1, 'detailLocation': 1 }")
+    Driver findProfileByDriverId(String driverId);
+
+    @Query(value = "{ 'driverId': { $in: ?0 } }", fields = "{ 'driverId': 1, 'detailLocation': 1 }")
+    List<Driver> findProfilesByDriverIdIn(Collection<String> driverIds);
+
+    boolean existsByDriverId(String driverId);
 }
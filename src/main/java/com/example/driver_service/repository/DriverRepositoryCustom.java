@@ -0,0 +1,24 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.ENUM.Status;
+
+import java.util.Map;
+import java.util.Set;
+
+public interface DriverRepositoryCustom {
+    /**
+     * Sets the status of the driver with the given driverId in a single atomic update, matching only
+     * while the driver has a different status. Of two concurrent toggles to the same status only one
+     * changes the document, so only that one should go on to update Redis.
+     *
+     * @return false when no driver matches or the driver already has this status
+     */
+    boolean updateStatus(String driverId, Status status);
+
+    /**
+     * Sets the status of many drivers with one unordered bulkWrite.
+     *
+     * @return the driverIds that matched a driver; the others do not exist
+     */
+    Set<String> updateStatuses(Map<String, Status> statuses);
+}
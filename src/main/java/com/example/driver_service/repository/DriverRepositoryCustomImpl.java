@@ -0,0 +1,51 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.ENUM.Status;
+import com.example.driver_service.model.Driver;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class DriverRepositoryCustomImpl implements DriverRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public DriverRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean updateStatus(String driverId, Status status) {
+        Query query = Query.query(Criteria.where("driverId").is(driverId).and("status").ne(status));
+        return mongoTemplate.updateFirst(query, Update.update("status", status), Driver.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public Set<String> updateStatuses(Map<String, Status> statuses) {
+        if (statuses.isEmpty()) {
+            return Set.of();
+        }
+        // bulkWrite only reports totals, so the drivers that exist are found first with one indexed $in
+        Query existing = Query.query(Criteria.where("driverId").in(statuses.keySet()));
+        existing.fields().include("driverId");
+        Set<String> matched = new HashSet<>();
+        for (Driver driver : mongoTemplate.find(existing, Driver.class)) {
+            matched.add(driver.getDriverId());
+        }
+        if (matched.isEmpty()) {
+            return matched;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Driver.class);
+        for (String driverId : matched) {
+            bulk.updateOne(Query.query(Criteria.where("driverId").is(driverId)),
+                    Update.update("status", statuses.get(driverId)));
+        }
+        bulk.execute();
+        return matched;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.ENUM.Status;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis mirror of each driver's status so availability checks never go to Mongo.
+ * One key per driver keeps the mirror spread across cluster slots.
+ */
+@Timed(value = "driver.redis", histogram = true)
+@Repository
+public class DriverStatusRepository {
+    private static final String STATUS_KEY_PREFIX = "driver_status:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public DriverStatusRepository(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void setStatus(String driverId, Status status) {
+        redisTemplate.opsForValue().set(STATUS_KEY_PREFIX + driverId, status.name());
+    }
+
+    /**
+     * Mirrors the status of many drivers with one MSET.
+     */
+    public void setStatuses(Map<String, Status> statuses) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        Map<String, String> values = new HashMap<>();
+        statuses.forEach((driverId, status) -> values.put(STATUS_KEY_PREFIX + driverId, status.name()));
+        redisTemplate.opsForValue().multiSet(values);
+    }
+
+    /**
+     * @return the mirrored status, or null when the driver has never been switched on or off
+     */
+    public Status getStatus(String driverId) {
+        return toStatus(redisTemplate.opsForValue().get(STATUS_KEY_PREFIX + driverId));
+    }
+
+    /**
+     * Reads the status of many drivers with one MGET, in the same order as {@code driverIds}.
+     */
+    public List<Status> getStatuses(List<String> driverIds) {
+        List<String> keys = new ArrayList<>(driverIds.size());
+        for (String driverId : driverIds) {
+            keys.add(STATUS_KEY_PREFIX + driverId);
+        }
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        List<Status> statuses = new ArrayList<>(driverIds.size());
+        for (int i = 0; i < driverIds.size(); i++) {
+            statuses.add(values != null ? toStatus(values.get(i)) : null);
+        }
+        return statuses;
+    }
+
+    private static Status toStatus(String value) {
+        return value != null ? Status.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,397 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.geo.GeoHash;
+import com.example.driver_service.geo.RegionGrid;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.properties.HeatmapProperties;
+import com.example.driver_service.response.HeatmapCell;
+import com.example.driver_service.response.HeatmapResponse;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-geohash-cell counts of available drivers and recent trip requests, kept up to date by small
+ * increments so reading them never scans the geo index. The counts are sharded by the same
+ * {@link RegionGrid} regions as {@link DriverLocationRepository}; a cell belongs to the region of its
+ * center, and each region has its own keys hash-tagged with the region id:
+ * <ul>
+ *     <li>{@code heatmap_driver_cells:{region}}: cell of every driver counted as available</li>
+ *     <li>{@code heatmap_supply:{region}}: available drivers per cell</li>
+ *     <li>{@code heatmap_demand:{region}:<bucket>}: trip requests per cell in one time bucket</li>
+ *     <li>{@code heatmap_demand:{region}}: trip requests per cell summed over the buckets in the window</li>
+ *     <li>{@code heatmap_changes:{region}}: sorted set of cells scored by the Redis time (epoch millis) of their last change</li>
+ *     <li>{@code heatmap_state:{region}}: latest bucket rolled into the window</li>
+ * </ul>
+ * {@code heatmap_region:<driverId>} remembers the region a driver is counted in, and
+ * {@code heatmap_regions} lists every region that has ever held heatmap counts. Versions are Redis
+ * server times, so a snapshot at version v holds every change stamped at or after v in each region.
+ * All writes, including rolling the demand window forward, happen on the flush of
+ * {@code HeatmapRecorder}; {@link #snapshot} only reads.
+ */
+@Timed(value = "driver.redis", histogram = true)
+@Repository
+public class HeatmapRepository {
+    public static final String REGIONS_KEY = "heatmap_regions";
+    public static final String DRIVER_REGION_KEY_PREFIX = "heatmap_region:";
+    // Delta snapshots look back this far so small clock differences between shards cannot hide a change
+    static final long CLOCK_SLACK_MILLIS = 1000;
+
+    // Milliseconds of the Redis clock; replicate_commands lets Redis before 7 write after reading TIME
+    private static final String NOW_MILLIS = "redis.replicate_commands() "
+            + "local time = redis.call('TIME') "
+            + "local stamp = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) ";
+
+    // KEYS: driver cells, supply, changes; ARGV holds driverId/cell pairs, an empty cell means the
+    // driver is no longer counted in this region
+    static final RedisScript<Long> UPDATE_SUPPLY_SCRIPT = new DefaultRedisScript<>(
+            NOW_MILLIS
+                    + "for i = 1, #ARGV, 2 do "
+                    + "local previous = redis.call('HGET', KEYS[1], ARGV[i]) "
+                    + "local cell = ARGV[i + 1] "
+                    + "if previous ~= cell and (previous or cell ~= '') then "
+                    + "if previous then "
+                    + "if redis.call('HINCRBY', KEYS[2], previous, -1) <= 0 then redis.call('HDEL', KEYS[2], previous) end "
+                    + "redis.call('ZADD', KEYS[3], stamp, previous) "
+                    + "end "
+                    + "if cell == '' then "
+                    + "redis.call('HDEL', KEYS[1], ARGV[i]) "
+                    + "else "
+                    + "redis.call('HSET', KEYS[1], ARGV[i], cell) "
+                    + "redis.call('HINCRBY', KEYS[2], cell, 1) "
+                    + "redis.call('ZADD', KEYS[3], stamp, cell) "
+                    + "end end end "
+                    + "return stamp",
+            Long.class);
+
+    // Rolls the demand totals forward to the caller's bucket. Buckets that left the window since the
+    // last roll are subtracted; after an idle gap longer than the window they may have expired, so the
+    // totals are rebuilt from the live buckets instead and every affected cell is marked changed.
+    // A caller whose clock is behind never rolls back. KEYS: totals, changes, state, supply, then the
+    // 2 * window bucket keys ending at the current bucket; ARGV: current bucket, window size
+    private static final String ROLL_DEMAND = NOW_MILLIS
+            + "local now = tonumber(ARGV[1]) "
+            + "local window = tonumber(ARGV[2]) "
+            + "local first = now - 2 * window + 1 "
+            + "local function bucketKey(b) return KEYS[5 + b - first] end "
+            + "local last = tonumber(redis.call('HGET', KEYS[3], 'bucket')) "
+            + "if not last or now > last then "
+            + "redis.call('HSET', KEYS[3], 'bucket', now) "
+            + "if last and now - last <= window then "
+            + "for b = last - window + 1, now - window do "
+            + "local counts = redis.call('HGETALL', bucketKey(b)) "
+            + "for i = 1, #counts, 2 do "
+            + "if redis.call('HINCRBY', KEYS[1], counts[i], -tonumber(counts[i + 1])) <= 0 then "
+            + "redis.call('HDEL', KEYS[1], counts[i]) end "
+            + "redis.call('ZADD', KEYS[2], stamp, counts[i]) "
+            + "end end "
+            + "else "
+            + "for _, cell in ipairs(redis.call('HKEYS', KEYS[1])) do redis.call('ZADD', KEYS[2], stamp, cell) end "
+            + "redis.call('DEL', KEYS[1]) "
+            + "for b = now - window + 1, now do "
+            + "local counts = redis.call('HGETALL', bucketKey(b)) "
+            + "for i = 1, #counts, 2 do "
+            + "redis.call('HINCRBY', KEYS[1], counts[i], counts[i + 1]) "
+            + "redis.call('ZADD', KEYS[2], stamp, counts[i]) "
+            + "end end end "
+            + "last = now "
+            + "end ";
+
+    // Rolls the window forward on its own, for regions that had no trips in the new bucket
+    static final RedisScript<Long> ROLL_DEMAND_SCRIPT = new DefaultRedisScript<>(
+            ROLL_DEMAND + "return stamp",
+            Long.class);
+
+    // ARGV[3] is the bucket TTL in seconds, followed by cell/count pairs. Counts for a bucket that
+    // already left the window are dropped rather than added to totals nothing would subtract them from.
+    static final RedisScript<Long> RECORD_DEMAND_SCRIPT = new DefaultRedisScript<>(
+            ROLL_DEMAND
+                    + "if now <= last - window then return 0 end "
+                    + "local bucket = bucketKey(now) "
+                    + "for i = 4, #ARGV, 2 do "
+                    + "redis.call('HINCRBY', bucket, ARGV[i], ARGV[i + 1]) "
+                    + "redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "redis.call('ZADD', KEYS[2], stamp, ARGV[i]) "
+                    + "end "
+                    + "redis.call('EXPIRE', bucket, ARGV[3]) "
+                    + "return stamp",
+            Long.class);
+
+    // Read-only. KEYS: changes, supply, demand totals; ARGV[1] is the client's version, 0 for every
+    // non-empty cell. Replies the Redis time, then cell/supply/demand triples.
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List> SNAPSHOT_SCRIPT = new DefaultRedisScript<>(
+            "local time = redis.call('TIME') "
+                    + "local stamp = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+                    + "local since = tonumber(ARGV[1]) "
+                    + "local cells "
+                    + "if since <= 0 then cells = redis.call('ZRANGE', KEYS[1], 0, -1) "
+                    + "else cells = redis.call('ZRANGEBYSCORE', KEYS[1], since, '+inf') end "
+                    + "local result = {tostring(stamp)} "
+                    + "for _, cell in ipairs(cells) do "
+                    + "local supply = redis.call('HGET', KEYS[2], cell) or '0' "
+                    + "local demand = redis.call('HGET', KEYS[3], cell) or '0' "
+                    + "if since > 0 or supply ~= '0' or demand ~= '0' then "
+                    + "table.insert(result, cell) "
+                    + "table.insert(result, supply) "
+                    + "table.insert(result, demand) "
+                    + "end end "
+                    + "return result",
+            List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final HeatmapProperties heatmapProperties;
+    private final RegionGrid regionGrid;
+    // Regions this node already added to heatmap_regions, so the shared set is not written on every flush
+    private final Set<String> knownRegions = ConcurrentHashMap.newKeySet();
+
+    public HeatmapRepository(RedisTemplate<String, String> redisTemplate, HeatmapProperties heatmapProperties,
+                             GeoProperties geoProperties) {
+        this.redisTemplate = redisTemplate;
+        this.heatmapProperties = heatmapProperties;
+        this.regionGrid = new RegionGrid(geoProperties.getRegionCellDegrees());
+    }
+
+    static String driverCellsKey(String region) {
+        return "heatmap_driver_cells:{" + region + "}";
+    }
+
+    static String supplyKey(String region) {
+        return "heatmap_supply:{" + region + "}";
+    }
+
+    static String demandKey(String region) {
+        return "heatmap_demand:{" + region + "}";
+    }
+
+    static String changesKey(String region) {
+        return "heatmap_changes:{" + region + "}";
+    }
+
+    static String stateKey(String region) {
+        return "heatmap_state:{" + region + "}";
+    }
+
+    /**
+     * Region that holds the counts of a cell: the region of the cell's center, so a cell never
+     * straddles two shards.
+     */
+    public String regionOfCell(String cell) {
+        double[] center = GeoHash.center(cell);
+        return regionGrid.regionOf(center[0], center[1]);
+    }
+
+    /**
+     * Counts each driver as available in its cell, moving it out of the cell it was counted in
+     * before, or stops counting it when its cell is empty. Runs one pipeline to swap the drivers'
+     * region pointers and one pipeline of per-region scripts, which also clear drivers from the
+     * region they left.
+     */
+    public void updateSupply(Map<String, String> driverCells) {
+        if (driverCells.isEmpty()) {
+            return;
+        }
+        List<String> driverIds = new ArrayList<>(driverCells.keySet());
+        List<String> regions = new ArrayList<>(driverIds.size());
+        Map<String, List<String>> argsByRegion = new LinkedHashMap<>();
+        for (String driverId : driverIds) {
+            String cell = driverCells.get(driverId);
+            String region = cell.isEmpty() ? null : regionOfCell(cell);
+            regions.add(region);
+            if (region != null) {
+                addPair(argsByRegion, region, driverId, cell);
+            }
+        }
+        List<String> newRegions = argsByRegion.keySet().stream().filter(r -> !knownRegions.contains(r)).toList();
+
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (int i = 0; i < driverIds.size(); i++) {
+                    String key = DRIVER_REGION_KEY_PREFIX + driverIds.get(i);
+                    if (regions.get(i) == null) {
+                        ops.opsForValue().getAndDelete(key);
+                    } else {
+                        ops.opsForValue().getAndSet(key, regions.get(i));
+                    }
+                }
+                if (!newRegions.isEmpty()) {
+                    ops.opsForSet().add(REGIONS_KEY, newRegions.toArray(new String[0]));
+                }
+                return null;
+            }
+        });
+        knownRegions.addAll(newRegions);
+
+        for (int i = 0; i < driverIds.size() && i < replies.size(); i++) {
+            Object previous = replies.get(i);
+            if (previous != null && !previous.equals(regions.get(i))) {
+                addPair(argsByRegion, (String) previous, driverIds.get(i), "");
+            }
+        }
+        if (argsByRegion.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                argsByRegion.forEach((region, args) -> ops.execute(UPDATE_SUPPLY_SCRIPT,
+                        List.of(driverCellsKey(region), supplyKey(region), changesKey(region)), args.toArray()));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Adds trip requests per cell to the current bucket, with one pipelined script call per region.
+     */
+    public void recordTrips(Map<String, Long> tripsPerCell) {
+        if (tripsPerCell.isEmpty()) {
+            return;
+        }
+        long bucket = currentBucket();
+        // Buckets must outlive the window by another window so a late roll can still subtract them
+        String ttl = String.valueOf(heatmapProperties.getDemandBucketSeconds()
+                * (2L * heatmapProperties.getDemandWindowBuckets() + 1));
+        Map<String, List<String>> argsByRegion = new LinkedHashMap<>();
+        tripsPerCell.forEach((cell, count) -> addPair(argsByRegion, regionOfCell(cell), cell, String.valueOf(count)));
+        List<String> newRegions = argsByRegion.keySet().stream().filter(r -> !knownRegions.contains(r)).toList();
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                argsByRegion.forEach((region, pairs) -> {
+                    List<String> args = new ArrayList<>(pairs.size() + 3);
+                    args.add(String.valueOf(bucket));
+                    args.add(String.valueOf(heatmapProperties.getDemandWindowBuckets()));
+                    args.add(ttl);
+                    args.addAll(pairs);
+                    ops.execute(RECORD_DEMAND_SCRIPT, demandKeys(region, bucket), args.toArray());
+                });
+                if (!newRegions.isEmpty()) {
+                    ops.opsForSet().add(REGIONS_KEY, newRegions.toArray(new String[0]));
+                }
+                return null;
+            }
+        });
+        knownRegions.addAll(newRegions);
+    }
+
+    /**
+     * Subtracts the trip requests of buckets that left the window in every region, with one pipelined
+     * script call per region. Regions already rolled to {@code bucket}, by this or another node, are
+     * left alone, so every node can call this once per bucket.
+     */
+    public void rollDemand(long bucket) {
+        Set<String> regions = redisTemplate.opsForSet().members(REGIONS_KEY);
+        if (regions == null || regions.isEmpty()) {
+            return;
+        }
+        String window = String.valueOf(heatmapProperties.getDemandWindowBuckets());
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                regions.forEach(region -> ops.execute(ROLL_DEMAND_SCRIPT, demandKeys(region, bucket),
+                        String.valueOf(bucket), window));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Cells changed at or after version {@code since} in every region, or every non-empty cell when
+     * {@code since} is 0, read with one SMEMBERS and one read-only script per region over the
+     * changed-cell index. The returned version is the earliest of the regions' Redis times, so passing
+     * it back never skips a change; a cell may be repeated, which is harmless since counts are absolute.
+     * Demand may include a bucket that just left the window until the next flush rolls it out.
+     */
+    public HeatmapResponse snapshot(long since) {
+        HeatmapResponse response = new HeatmapResponse();
+        response.setFull(since <= 0);
+        response.setVersion(since);
+        Set<String> members = redisTemplate.opsForSet().members(REGIONS_KEY);
+        List<String> regions = members == null ? List.of() : new ArrayList<>(members);
+        List<HeatmapCell> cells = new ArrayList<>();
+        response.setCells(cells);
+        if (regions.isEmpty()) {
+            return response;
+        }
+        String from = String.valueOf(since <= 0 ? 0 : Math.max(1, since - CLOCK_SLACK_MILLIS));
+        List<Object> replies = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                regions.forEach(region -> ops.execute(SNAPSHOT_SCRIPT, snapshotKeys(region), from));
+                return null;
+            }
+        });
+
+        long version = Long.MAX_VALUE;
+        for (Object reply : replies) {
+            if (!(reply instanceof List<?> values) || values.isEmpty()) {
+                continue;
+            }
+            version = Math.min(version, Long.parseLong(String.valueOf(values.get(0))));
+            for (int i = 1; i + 2 < values.size(); i += 3) {
+                cells.add(new HeatmapCell(String.valueOf(values.get(i)), Long.parseLong(String.valueOf(values.get(i + 1))),
+                        Long.parseLong(String.valueOf(values.get(i + 2)))));
+            }
+        }
+        if (version != Long.MAX_VALUE) {
+            response.setVersion(version);
+        }
+        return response;
+    }
+
+    /**
+     * Keys of the demand scripts for a region: totals, changes, state, supply, then the bucket keys
+     * from {@code bucket - 2 * window + 1} to {@code bucket}, which cover every bucket a roll can touch.
+     */
+    List<String> demandKeys(String region, long bucket) {
+        int window = heatmapProperties.getDemandWindowBuckets();
+        List<String> keys = new ArrayList<>(4 + 2 * window);
+        keys.add(demandKey(region));
+        keys.add(changesKey(region));
+        keys.add(stateKey(region));
+        keys.add(supplyKey(region));
+        for (long b = bucket - 2L * window + 1; b <= bucket; b++) {
+            keys.add(demandKey(region) + ":" + b);
+        }
+        return keys;
+    }
+
+    static List<String> snapshotKeys(String region) {
+        return List.of(changesKey(region), supplyKey(region), demandKey(region));
+    }
+
+    public long currentBucket() {
+        return System.currentTimeMillis() / 1000 / heatmapProperties.getDemandBucketSeconds();
+    }
+
+    private static void addPair(Map<String, List<String>> argsByRegion, String region, String first, String second) {
+        List<String> args = argsByRegion.computeIfAbsent(region, r -> new ArrayList<>());
+        args.add(first);
+        args.add(second);
+    }
+}
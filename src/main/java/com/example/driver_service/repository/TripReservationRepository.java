@@ -0,0 +1,74 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.properties.DispatchProperties;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Claims trips so each one is accepted by exactly one driver.
+ * <ul>
+ *     <li>{@code trip_reservation:<tripId>}: id of the driver that won the trip</li>
+ * </ul>
+ * The key expires after {@code driver.dispatch.reservation-ttl-seconds}. Drivers are not marked busy
+ * here: this service never learns when a trip ends, so a busy flag could only be cleared by its TTL.
+ */
+@Timed(value = "driver.redis", histogram = true)
+@Repository
+public class TripReservationRepository {
+    private static final String RESERVATION_KEY_PREFIX = "trip_reservation:";
+
+    public enum Reservation {
+        // The driver holds the trip, including a repeated accept by the same driver
+        RESERVED,
+        // Another driver already holds the trip
+        TAKEN
+    }
+
+    // 1 when ARGV[1] holds the trip afterwards, 0 when another driver does
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1]) "
+                    + "if owner then "
+                    + "if owner == ARGV[1] then return 1 end "
+                    + "return 0 end "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "return 1",
+            Long.class);
+
+    // Deletes the claim only while ARGV[1] still holds it; 1 when it was deleted
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final DispatchProperties dispatchProperties;
+
+    public TripReservationRepository(RedisTemplate<String, String> redisTemplate,
+                                     DispatchProperties dispatchProperties) {
+        this.redisTemplate = redisTemplate;
+        this.dispatchProperties = dispatchProperties;
+    }
+
+    /**
+     * Claims {@code tripId} for {@code driverId} in one Redis call.
+     */
+    public Reservation reserve(String tripId, String driverId) {
+        Long result = redisTemplate.execute(RESERVE_SCRIPT, List.of(RESERVATION_KEY_PREFIX + tripId),
+                driverId, String.valueOf(dispatchProperties.getReservationTtlSeconds()));
+        return result != null && result == 1 ? Reservation.RESERVED : Reservation.TAKEN;
+    }
+
+    /**
+     * Frees {@code tripId} for other drivers, unless the claim has expired and someone else holds it now.
+     */
+    public boolean release(String tripId, String driverId) {
+        Long result = redisTemplate.execute(RELEASE_SCRIPT, List.of(RESERVATION_KEY_PREFIX + tripId), driverId);
+        return result != null && result == 1;
+    }
+}
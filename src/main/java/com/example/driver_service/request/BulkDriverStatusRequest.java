@@ -0,0 +1,10 @@
+package com.example.driver_service.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkDriverStatusRequest {
+    private List<DriverStatusUpdate> drivers;
+}
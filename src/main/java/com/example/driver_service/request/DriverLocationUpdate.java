@@ -0,0 +1,15 @@
+package com.example.driver_service.request;
+
+import com.example.driver_service.geo.CoordinateDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Data;
+
+@Data
+public class DriverLocationUpdate {
+    private String driverId;
+    @JsonDeserialize(using = CoordinateDeserializer.class)
+    private double latitude = Double.NaN;
+    @JsonDeserialize(using = CoordinateDeserializer.class)
+    private double longitude = Double.NaN;
+    private String detailLocation;
+}
@@ -0,0 +1,10 @@
+package com.example.driver_service.request;
+
+import com.example.driver_service.ENUM.Status;
+import lombok.Data;
+
+@Data
+public class DriverStatusUpdate {
+    private String driverId;
+    private Status status;
+}
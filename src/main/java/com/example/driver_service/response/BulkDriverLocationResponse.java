@@ -0,0 +1,12 @@
+package com.example.driver_service.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkDriverLocationResponse {
+    private int accepted;
+    private int rejected;
+    private List<DriverLocationUpdateResult> results;
+}
@@ -0,0 +1,12 @@
+package com.example.driver_service.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkDriverStatusResponse {
+    private int accepted;
+    private int rejected;
+    private List<DriverStatusUpdateResult> results;
+}
@@ -5,8 +5,8 @@ import lombok.Data;
 @Data
 public class DriverLocationResponse {
     private String driverId;
-    private String latitude;
-    private String longitude;
+    private Double latitude;
+    private Double longitude;
     private String detailLocation;
     private String driverName;
 }
@@ -0,0 +1,14 @@
+package com.example.driver_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverLocationUpdateResult {
+    private String driverId;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,14 @@
+package com.example.driver_service.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapCell {
+    private String geohash;
+    private long availableDrivers;
+    private long recentTrips;
+}
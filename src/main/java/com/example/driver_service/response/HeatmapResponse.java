@@ -0,0 +1,14 @@
+package com.example.driver_service.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class HeatmapResponse {
+    // Pass back as since= to receive only the cells changed after this snapshot
+    private long version;
+    // True when cells holds the whole heatmap rather than the changes since the requested version
+    private boolean full;
+    private List<HeatmapCell> cells;
+}
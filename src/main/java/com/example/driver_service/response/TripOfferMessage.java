@@ -0,0 +1,14 @@
+package com.example.driver_service.response;
+
+import lombok.Data;
+
+@Data
+public class TripOfferMessage {
+    private String type = "TRIP_OFFER";
+    private String tripId;
+    private String userId;
+    private String origin;
+    private String destination;
+    private double latitude;
+    private double longitude;
+}
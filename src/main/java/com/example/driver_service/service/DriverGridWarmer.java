@@ -0,0 +1,60 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import com.example.driver_service.repository.DriverLocationRepository.ActiveDriver;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the drivers that are still fresh in the Redis geo index into the in-memory grid when the
+ * {@code memory} engine starts, so a restarted node does not answer nearby searches with an empty
+ * grid until every driver has pinged again.
+ */
+@Component
+public class DriverGridWarmer {
+    private final DriverLocationRepository driverLocationRepository;
+    private final DriverGridIndex driverGridIndex;
+    private final GeoProperties geoProperties;
+    private final DriverLogShipper driverLog;
+
+    public DriverGridWarmer(
+        DriverLocationRepository driverLocationRepository,
+        DriverGridIndex driverGridIndex,
+        GeoProperties geoProperties,
+        DriverLogShipper driverLog
+    ) {
+        this.driverLocationRepository = driverLocationRepository;
+        this.driverGridIndex = driverGridIndex;
+        this.geoProperties = geoProperties;
+        this.driverLog = driverLog;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public int warm() {
+        if (!geoProperties.isMemoryEngine()) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(geoProperties.getStaleAfterSeconds());
+        int loaded = 0;
+        try {
+            for (ActiveDriver driver : driverLocationRepository.activeSince(cutoff)) {
+                if (driverGridIndex.load(driver.driverId(), driver.point().getY(), driver.point().getX(),
+                        driver.lastSeenMillis())) {
+                    loaded++;
+                }
+            }
+        } catch (Exception e) {
+            // The grid still fills up from new pings, so a failed warm-up must not stop the node
+            driverLog.error("Failed to load the driver grid from Redis: " + e.getMessage());
+        }
+        driverLog.info("Loaded " + loaded + " active drivers into the in-memory grid; the memory engine "
+                + "only sees this node's pings from now on and must run as a single replica");
+        return loaded;
+    }
+}
@@ -1,16 +1,59 @@
 package com.example.driver_service.service;
 
 import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+
+import java.util.List;
 
 import com.example.driver_service.model.Driver;
+import com.example.driver_service.request.BulkDriverLocationRequest;
+import com.example.driver_service.request.BulkDriverStatusRequest;
 import com.example.driver_service.request.DriverLocationRequest;
+import com.example.driver_service.response.BulkDriverLocationResponse;
+import com.example.driver_service.response.BulkDriverStatusResponse;
 import com.example.driver_service.response.DriverLocationResponse;
+import com.example.driver_service.response.HeatmapResponse;
 
 public interface DriverService {
     DriverLocationResponse getDriverLocation(String driverId) throws Exception;
+    /**
+     * Current positions of several drivers in one call, in request order; unknown drivers are left out.
+     */
+    List<DriverLocationResponse> getDriverLocations(List<String> driverIds);
     String updateDriverLocation(DriverLocationRequest driverLocationRequest, String id) throws Exception;
+    /**
+     * Typed form of {@link #updateDriverLocation(DriverLocationRequest, String)} for callers that already hold coordinates.
+     */
+    String updateDriverLocation(String id, double latitude, double longitude);
+    BulkDriverLocationResponse updateDriverLocations(BulkDriverLocationRequest request);
     String turnOnDriver(String driverId) throws Exception;
     String turnOffDriver(String driverId) throws Exception;
+    /**
+     * Switches many drivers ON or OFF at once, e.g. at a shift change, with one result per entry.
+     */
+    BulkDriverStatusResponse updateDriverStatuses(BulkDriverStatusRequest request);
     String acceptTrip(String driverId, String tripId) throws Exception;
     GeoResults<String> findDriversNearby(double latitude, double longitude, double radius);
+    /**
+     * Nearby drivers for several centers (x = longitude, y = latitude) in one round trip, in the same order.
+     */
+    List<GeoResults<String>> findDriversNearby(List<Point> centers, double radius);
+    /**
+     * Up to {@code count} drivers nearest first, searching a small radius first and widening it until
+     * {@code count} drivers are found or the configured maximum radius is reached.
+     */
+    GeoResults<String> findNearestDrivers(double latitude, double longitude, int count);
+    /**
+     * Batch form of {@link #findNearestDrivers(double, double, int)}; each widening step is one round trip
+     * for all centers that still need more drivers.
+     */
+    List<GeoResults<String>> findNearestDrivers(List<Point> centers, int count);
+    /**
+     * Counts trip requests at these pickups (x = longitude, y = latitude) in the demand heatmap.
+     */
+    void recordTripRequests(List<Point> pickups);
+    /**
+     * Heatmap cells changed after version {@code since}; 0 returns every non-empty cell.
+     */
+    HeatmapResponse getHeatmap(long since);
 }
@@ -2,151 +2,703 @@ package com.example.driver_service.service;
 
 import com.example.driver_service.DTO.UserDTO;
 import com.example.driver_service.ENUM.Status;
-import com.example.driver_service.client.UserClient;
+import com.example.driver_service.client.UserProfileCache;
 import com.example.driver_service.event.AcceptTripEvent;
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.GeoUtils;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.history.LocationHistoryWriter;
+import com.example.driver_service.logging.DriverLogShipper;
 import com.example.driver_service.model.Driver;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
 import com.example.driver_service.repository.DriverRepository;
+import com.example.driver_service.repository.DriverStatusRepository;
+import com.example.driver_service.repository.TripReservationRepository;
+import com.example.driver_service.request.BulkDriverLocationRequest;
+import com.example.driver_service.request.BulkDriverStatusRequest;
 import com.example.driver_service.request.DriverLocationRequest;
+import com.example.driver_service.request.DriverLocationUpdate;
+import com.example.driver_service.request.DriverStatusUpdate;
+import com.example.driver_service.response.BulkDriverLocationResponse;
+import com.example.driver_service.response.BulkDriverStatusResponse;
 import com.example.driver_service.response.DriverLocationResponse;
+import com.example.driver_service.response.DriverLocationUpdateResult;
+import com.example.driver_service.response.DriverStatusUpdateResult;
+import com.example.driver_service.response.HeatmapResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
-import org.springframework.data.redis.core.BoundGeoOperations;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.geo.Point;
 import org.springframework.data.geo.Distance;
 import org.springframework.data.geo.Metrics;
 import org.springframework.data.geo.Circle;
 import org.springframework.data.geo.GeoResults;
 import org.springframework.data.geo.GeoResult;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+@Timed(value = "driver.service", histogram = true)
 @Service
 public class DriverServiceImpl implements DriverService{
     private final DriverRepository driverRepository;
-    private final UserClient userClient;
-    private static final String ACTIVE_DRIVERS_KEY = "active_drivers";
+    private final UserProfileCache userProfileCache;
     private static final String TRIP_CREATED_TOPIC = "trip_created";
-    private static final String DRIVER_LOGS_TOPIC = "driver-logs";
     private final KafkaTemplate<String, String> kafkaTemplate;
-    private final BoundGeoOperations<String, String> geoOperations;
+    private final DriverLocationRepository driverLocationRepository;
+    private final GeoProperties geoProperties;
+    private final DriverGridIndex driverGridIndex;
+    private final DriverLogShipper driverLog;
+    private final DriverStatusRepository driverStatusRepository;
+    private final LocationWriteFilter locationWriteFilter;
+    private final LocationHistoryWriter locationHistoryWriter;
+    private final TripReservationRepository tripReservationRepository;
+    private final NearbyResultCache nearbyResultCache;
+    private final HeatmapRecorder heatmapRecorder;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     public DriverServiceImpl(
         DriverRepository driverRepository, 
-        UserClient userClient, 
+        UserProfileCache userProfileCache, 
         KafkaTemplate<String, String> kafkaTemplate,
-        RedisTemplate<String, String> redisTemplate
+        DriverLocationRepository driverLocationRepository,
+        GeoProperties geoProperties,
+        DriverGridIndex driverGridIndex,
+        DriverLogShipper driverLog,
+        DriverStatusRepository driverStatusRepository,
+        LocationWriteFilter locationWriteFilter,
+        LocationHistoryWriter locationHistoryWriter,
+        TripReservationRepository tripReservationRepository,
+        NearbyResultCache nearbyResultCache,
+        HeatmapRecorder heatmapRecorder
     ) {
-        this.geoOperations = redisTemplate.boundGeoOps(ACTIVE_DRIVERS_KEY);
+        this.driverLocationRepository = driverLocationRepository;
         this.driverRepository = driverRepository;
-        this.userClient = userClient;
+        this.userProfileCache = userProfileCache;
         this.kafkaTemplate = kafkaTemplate;
-    }
-
-    private void logToKafka(String message) {
-        // Wrap the log message in JSON format with service_name and timestamp
-        String jsonLog = String.format("{\"message\":%s, \"service_name\":\"driver-service\", \"timestamp\":\"%s\"}",
-                new ObjectMapper().valueToTree(message).toString(),
-                java.time.Instant.now().toString());
-        kafkaTemplate.send(DRIVER_LOGS_TOPIC, jsonLog);
+        this.geoProperties = geoProperties;
+        this.driverGridIndex = driverGridIndex;
+        this.driverLog = driverLog;
+        this.driverStatusRepository = driverStatusRepository;
+        this.locationWriteFilter = locationWriteFilter;
+        this.locationHistoryWriter = locationHistoryWriter;
+        this.tripReservationRepository = tripReservationRepository;
+        this.nearbyResultCache = nearbyResultCache;
+        this.heatmapRecorder = heatmapRecorder;
     }
 
     @Override
     public DriverLocationResponse getDriverLocation(String driverId) throws Exception {
-        logToKafka("getDriverLocation called for driverId: " + driverId);
-        Driver driver = driverRepository.findByDriverId(driverId);
+        driverLog.debug("getDriverLocation called for driverId: " + driverId);
+        Driver driver = driverRepository.findProfileByDriverId(driverId);
         if (driver != null) {
-            DriverLocationResponse response = new DriverLocationResponse();
-            response.setDriverId(driver.getDriverId());
-            response.setLatitude(driver.getLatitude());
-            response.setLongitude(driver.getLongitude());
-            response.setDetailLocation(driver.getDetailLocation());
-            UserDTO userDTO = userClient.getUserInfo();
+            DriverLocationResponse response = toLocationResponse(driver, livePositions(List.of(driverId)).get(0));
+            UserDTO userDTO = userProfileCache.getCurrentUser();
             response.setDriverName(userDTO.getName());
             return response;
         } else {
-            logToKafka("Driver not found for driverId: " + driverId);
+            driverLog.warn("Driver not found for driverId: " + driverId);
             throw new Exception("Driver not found");
         }
     }
 
+    @Override
+    public List<DriverLocationResponse> getDriverLocations(List<String> driverIds) {
+        List<String> ids = driverIds.stream().distinct().toList();
+        driverLog.debug("getDriverLocations called for " + ids.size() + " drivers");
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Driver> drivers = new HashMap<>();
+        for (Driver driver : driverRepository.findProfilesByDriverIdIn(ids)) {
+            drivers.put(driver.getDriverId(), driver);
+        }
+        List<String> found = ids.stream().filter(drivers::containsKey).toList();
+        List<Point> positions = livePositions(found);
+        // Unknown drivers are left out; driverName is only resolved by the single-driver lookup
+        List<DriverLocationResponse> responses = new ArrayList<>(found.size());
+        for (int i = 0; i < found.size(); i++) {
+            responses.add(toLocationResponse(drivers.get(found.get(i)), positions.get(i)));
+        }
+        return responses;
+    }
+
+    /**
+     * Current positions from the geo index, in the same order as {@code driverIds}. The memory engine
+     * answers from the grid and only asks Redis for drivers it does not hold, such as drivers that went OFF.
+     */
+    private List<Point> livePositions(List<String> driverIds) {
+        if (!geoProperties.isMemoryEngine()) {
+            return driverLocationRepository.positions(driverIds);
+        }
+        List<Point> positions = new ArrayList<>(driverIds.size());
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < driverIds.size(); i++) {
+            Point position = driverGridIndex.position(driverIds.get(i));
+            positions.add(position);
+            if (position == null) {
+                misses.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<Point> fromRedis = driverLocationRepository.positions(misses.stream().map(driverIds::get).toList());
+            for (int j = 0; j < misses.size(); j++) {
+                positions.set(misses.get(j), fromRedis.get(j));
+            }
+        }
+        return positions;
+    }
+
+    private DriverLocationResponse toLocationResponse(Driver driver, Point position) {
+        DriverLocationResponse response = new DriverLocationResponse();
+        response.setDriverId(driver.getDriverId());
+        if (position != null) {
+            response.setLatitude(position.getY());
+            response.setLongitude(position.getX());
+        }
+        response.setDetailLocation(driver.getDetailLocation());
+        return response;
+    }
+
     @Override
     public String updateDriverLocation(DriverLocationRequest driverLocationRequest, String id) throws Exception {
-        logToKafka("updateDriverLocation called for driverId: " + id);
+        driverLog.debug("updateDriverLocation called for driverId: " + id);
         if (id != null) {
-            double longitude = Double.parseDouble(driverLocationRequest.getLongitude());
-            double latitude = Double.parseDouble(driverLocationRequest.getLatitude());
-            geoOperations.add(new Point(longitude, latitude), id);
-            logToKafka("Successfully updated location for driver " + id);
-            return "Successfully updated location for driver " + id;
+            double latitude = driverLocationRequest.getLatitude();
+            double longitude = driverLocationRequest.getLongitude();
+            if (!GeoUtils.isValidCoordinate(latitude, longitude)) {
+                driverLog.warn("Invalid coordinates for driverId: " + id);
+                throw new Exception("Invalid coordinates");
+            }
+            return updateDriverLocation(id, latitude, longitude);
         } else {
-            logToKafka("Driver not found for update location, driverId: " + id);
+            driverLog.warn("Driver not found for update location, driverId: " + id);
             throw new Exception("Driver not found");
         }
     }
 
+    @Override
+    public String updateDriverLocation(String id, double latitude, double longitude) {
+        long now = System.currentTimeMillis();
+        // A driver that barely moved since the last write is acknowledged without any side effect: its
+        // status is not checked, so it may have gone OFF on another replica since
+        if (locationWriteFilter.isRedundant(id, latitude, longitude, now)) {
+            return "Successfully updated location for driver " + id;
+        }
+        // Pings from drivers that went OFF must not put them back into active_drivers
+        if (driverStatusRepository.getStatus(id) == Status.OFF) {
+            driverLog.info("Ignored location for offline driver " + id);
+            return "Driver " + id + " is offline, location ignored";
+        }
+        Point point = new Point(longitude, latitude);
+        driverLocationRepository.save(id, point);
+        nearbyResultCache.onWrite(latitude, longitude);
+        heatmapRecorder.move(Map.of(id, point));
+        locationWriteFilter.recordWrite(id, latitude, longitude, now);
+        locationHistoryWriter.record(id, latitude, longitude, now);
+        if (geoProperties.isMemoryEngine()) {
+            driverGridIndex.update(id, latitude, longitude);
+        }
+        driverLog.info("Successfully updated location for driver " + id);
+        return "Successfully updated location for driver " + id;
+    }
+
+    @Override
+    public BulkDriverLocationResponse updateDriverLocations(BulkDriverLocationRequest request) {
+        List<DriverLocationUpdate> updates = request.getLocations() != null ? request.getLocations() : List.of();
+        driverLog.debug("updateDriverLocations called for " + updates.size() + " drivers");
+
+        DriverLocationUpdateResult[] results = new DriverLocationUpdateResult[updates.size()];
+        List<Integer> candidates = new ArrayList<>();
+        List<String> candidateIds = new ArrayList<>();
+        List<Point> candidatePoints = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            DriverLocationUpdate update = updates.get(i);
+            String driverId = update.getDriverId();
+            if (driverId == null) {
+                results[i] = new DriverLocationUpdateResult(null, false, "Driver not found");
+                continue;
+            }
+            Point point = toPoint(update.getLatitude(), update.getLongitude());
+            if (point == null) {
+                results[i] = new DriverLocationUpdateResult(driverId, false, "Invalid coordinates");
+                continue;
+            }
+            candidates.add(i);
+            candidateIds.add(driverId);
+            candidatePoints.add(point);
+        }
+
+        // Pings that barely moved are acknowledged without a status lookup, so nothing is written for them
+        long now = System.currentTimeMillis();
+        List<Integer> toWrite = new ArrayList<>(candidates.size());
+        List<String> toWriteIds = new ArrayList<>(candidates.size());
+        List<Point> toWritePoints = new ArrayList<>(candidates.size());
+        for (int j = 0; j < candidates.size(); j++) {
+            String driverId = candidateIds.get(j);
+            Point point = candidatePoints.get(j);
+            if (locationWriteFilter.isRedundant(driverId, point.getY(), point.getX(), now)) {
+                results[candidates.get(j)] = new DriverLocationUpdateResult(driverId, true, "Location updated");
+                continue;
+            }
+            toWrite.add(candidates.get(j));
+            toWriteIds.add(driverId);
+            toWritePoints.add(point);
+        }
+        candidates = toWrite;
+        candidateIds = toWriteIds;
+        candidatePoints = toWritePoints;
+
+        // Last ping wins when the same driver appears more than once in a batch
+        Map<String, Point> points = new LinkedHashMap<>();
+        if (!candidates.isEmpty()) {
+            List<Status> statuses = driverStatusRepository.getStatuses(candidateIds);
+            for (int j = 0; j < candidates.size(); j++) {
+                String driverId = candidateIds.get(j);
+                if (statuses.get(j) == Status.OFF) {
+                    results[candidates.get(j)] = new DriverLocationUpdateResult(driverId, false, "Driver is offline");
+                    continue;
+                }
+                Point point = candidatePoints.get(j);
+                points.put(driverId, point);
+                locationHistoryWriter.record(driverId, point.getY(), point.getX(), now);
+                results[candidates.get(j)] = new DriverLocationUpdateResult(driverId, true, "Location updated");
+            }
+        }
+
+        if (!points.isEmpty()) {
+            // One multi-member GEOADD carries the whole batch in a single round trip
+            driverLocationRepository.saveAll(points);
+            points.values().forEach(point -> nearbyResultCache.onWrite(point.getY(), point.getX()));
+            heatmapRecorder.move(points);
+            points.forEach((driverId, point) -> locationWriteFilter.recordWrite(driverId, point.getY(), point.getX(), now));
+            if (geoProperties.isMemoryEngine()) {
+                points.forEach((driverId, point) -> driverGridIndex.update(driverId, point.getY(), point.getX()));
+            }
+        }
+
+        BulkDriverLocationResponse response = new BulkDriverLocationResponse();
+        response.setResults(Arrays.asList(results));
+        response.setAccepted((int) response.getResults().stream().filter(DriverLocationUpdateResult::isSuccess).count());
+        response.setRejected(results.length - response.getAccepted());
+        driverLog.info("updateDriverLocations accepted " + response.getAccepted() + ", rejected " + response.getRejected());
+        return response;
+    }
+
+    private Point toPoint(double latitude, double longitude) {
+        return GeoUtils.isValidCoordinate(latitude, longitude) ? new Point(longitude, latitude) : null;
+    }
 
     @Override
     public String turnOnDriver(String driverId) throws Exception {
-        logToKafka("turnOnDriver called for driverId: " + driverId);
-        Driver driver = driverRepository.findByDriverId(driverId);
-        if (driver != null) {
-            driver.setStatus(Status.ON);
-            driverRepository.save(driver);
-            logToKafka("Driver is now available: " + driverId);
+        driverLog.debug("turnOnDriver called for driverId: " + driverId);
+        // Redis is only touched by the call that actually changed the document, so a repeated or
+        // concurrent toggle cannot leave the mirror or the geo sets behind Mongo
+        if (driverRepository.updateStatus(driverId, Status.ON)) {
+            driverStatusRepository.setStatus(driverId, Status.ON);
+            restoreToActiveDrivers(driverId);
+            driverLog.info("Driver is now available: " + driverId);
+            return "Driver is now available";
+        } else if (driverRepository.existsByDriverId(driverId)) {
+            driverLog.info("Driver is already available: " + driverId);
             return "Driver is now available";
         } else {
-            logToKafka("Driver not found for turnOn, driverId: " + driverId);
+            driverLog.warn("Driver not found for turnOn, driverId: " + driverId);
             throw new Exception("Driver not found");
         }
     }
 
     @Override
     public String turnOffDriver(String driverId) throws Exception {
-        logToKafka("turnOffDriver called for driverId: " + driverId);
-        Driver driver = driverRepository.findByDriverId(driverId);
-        if (driver != null) {
-            driver.setStatus(Status.OFF);
-            driverRepository.save(driver);
-            logToKafka("Driver is now unavailable: " + driverId);
+        driverLog.debug("turnOffDriver called for driverId: " + driverId);
+        if (driverRepository.updateStatus(driverId, Status.OFF)) {
+            driverStatusRepository.setStatus(driverId, Status.OFF);
+            removeFromActiveDrivers(driverId);
+            driverLog.info("Driver is now unavailable: " + driverId);
+            return "Driver is now available";
+        } else if (driverRepository.existsByDriverId(driverId)) {
+            driverLog.info("Driver is already unavailable: " + driverId);
             return "Driver is now available";
         } else {
-            logToKafka("Driver not found for turnOff, driverId: " + driverId);
+            driverLog.warn("Driver not found for turnOff, driverId: " + driverId);
             throw new Exception("Driver not found");
         }
     }
 
+    @Override
+    public BulkDriverStatusResponse updateDriverStatuses(BulkDriverStatusRequest request) {
+        List<DriverStatusUpdate> updates = request.getDrivers() != null ? request.getDrivers() : List.of();
+        driverLog.debug("updateDriverStatuses called for " + updates.size() + " drivers");
+
+        // Last entry wins when the same driver appears more than once
+        Map<String, Status> statuses = new LinkedHashMap<>();
+        for (DriverStatusUpdate update : updates) {
+            if (update.getDriverId() != null && update.getStatus() != null) {
+                statuses.put(update.getDriverId(), update.getStatus());
+            }
+        }
+
+        // One bulkWrite to Mongo, one MSET for the status mirror, one pipeline for geo membership
+        Set<String> matched = statuses.isEmpty() ? Set.of() : driverRepository.updateStatuses(statuses);
+        Map<String, Status> changed = new LinkedHashMap<>();
+        statuses.forEach((driverId, status) -> {
+            if (matched.contains(driverId)) {
+                changed.put(driverId, status);
+            }
+        });
+        if (!changed.isEmpty()) {
+            driverStatusRepository.setStatuses(changed);
+            Set<String> restored = driverLocationRepository.updateMembership(changed);
+            List<String> parked = new ArrayList<>();
+            changed.forEach((driverId, status) -> {
+                if (status == Status.OFF) {
+                    driverGridIndex.remove(driverId);
+                    locationWriteFilter.forget(driverId);
+                    parked.add(driverId);
+                }
+            });
+            heatmapRecorder.remove(parked);
+            nearbyResultCache.onRemove(parked);
+            if ((geoProperties.isMemoryEngine() || heatmapRecorder.isEnabled()) && !restored.isEmpty()) {
+                List<String> restoredIds = new ArrayList<>(restored);
+                List<Point> positions = driverLocationRepository.positions(restoredIds);
+                Map<String, Point> restoredPoints = new LinkedHashMap<>();
+                for (int i = 0; i < restoredIds.size(); i++) {
+                    Point position = positions.get(i);
+                    if (position != null) {
+                        restoredPoints.put(restoredIds.get(i), position);
+                    }
+                }
+                if (geoProperties.isMemoryEngine()) {
+                    restoredPoints.forEach((driverId, position) ->
+                        driverGridIndex.update(driverId, position.getY(), position.getX()));
+                }
+                heatmapRecorder.move(restoredPoints);
+            }
+        }
+
+        List<DriverStatusUpdateResult> results = new ArrayList<>(updates.size());
+        for (DriverStatusUpdate update : updates) {
+            String driverId = update.getDriverId();
+            if (driverId == null) {
+                results.add(new DriverStatusUpdateResult(null, false, "Driver not found"));
+            } else if (update.getStatus() == null) {
+                results.add(new DriverStatusUpdateResult(driverId, false, "Invalid status"));
+            } else if (!changed.containsKey(driverId)) {
+                results.add(new DriverStatusUpdateResult(driverId, false, "Driver not found"));
+            } else {
+                results.add(new DriverStatusUpdateResult(driverId, true,
+                        changed.get(driverId) == Status.ON ? "Driver is now available" : "Driver is now unavailable"));
+            }
+        }
+        BulkDriverStatusResponse response = new BulkDriverStatusResponse();
+        response.setResults(results);
+        response.setAccepted((int) results.stream().filter(DriverStatusUpdateResult::isSuccess).count());
+        response.setRejected(results.size() - response.getAccepted());
+        driverLog.info("updateDriverStatuses accepted " + response.getAccepted() + ", rejected " + response.getRejected());
+        return response;
+    }
+
+    private void removeFromActiveDrivers(String driverId) {
+        driverLocationRepository.park(driverId);
+        driverGridIndex.remove(driverId);
+        locationWriteFilter.forget(driverId);
+        heatmapRecorder.remove(List.of(driverId));
+        nearbyResultCache.onRemove(List.of(driverId));
+    }
+
+    private void restoreToActiveDrivers(String driverId) {
+        if (driverLocationRepository.restore(driverId)
+                && (geoProperties.isMemoryEngine() || heatmapRecorder.isEnabled())) {
+            Point position = driverLocationRepository.position(driverId);
+            if (position != null) {
+                if (geoProperties.isMemoryEngine()) {
+                    driverGridIndex.update(driverId, position.getY(), position.getX());
+                }
+                heatmapRecorder.move(Map.of(driverId, position));
+            }
+        }
+    }
+
     @Override
     public String acceptTrip(String driverId, String tripId) throws Exception {
-        logToKafka("acceptTrip called for driverId: " + driverId + ", tripId: " + tripId);
+        driverLog.debug("acceptTrip called for driverId: " + driverId + ", tripId: " + tripId);
+
+        // The trip is claimed before anything is published, so only the first driver to accept wins
+        TripReservationRepository.Reservation reservation = tripReservationRepository.reserve(tripId, driverId);
+        if (reservation == TripReservationRepository.Reservation.TAKEN) {
+            driverLog.info("Driver " + driverId + " lost trip " + tripId);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Trip " + tripId + " already accepted");
+        }
 
         AcceptTripEvent acceptTripEvent = new AcceptTripEvent();
         acceptTripEvent.setDriverId(driverId);
         acceptTripEvent.setTripId(tripId);
-        String json = new ObjectMapper().writeValueAsString(acceptTripEvent);
-        System.out.println(json);
-        kafkaTemplate.send(TRIP_CREATED_TOPIC, json);
-        logToKafka("Driver " + driverId + " accepted trip " + tripId);
+        try {
+            String json = objectMapper.writeValueAsString(acceptTripEvent);
+            driverLog.debug(json);
+            // Waits for the broker so a claim is never left behind without its acceptance event
+            kafkaTemplate.send(TRIP_CREATED_TOPIC, json).get();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            tripReservationRepository.release(tripId, driverId);
+            driverLog.error("Failed to publish acceptance of trip " + tripId + " by driver " + driverId + ": "
+                    + e.getMessage());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Could not accept trip " + tripId + ", try again", e);
+        }
+        driverLog.info("Driver " + driverId + " accepted trip " + tripId);
 
         return "Driver " + driverId + " accepted trip " + tripId;
     }
 
+    private List<GeoResult<String>> filterFresh(List<GeoResult<String>> drivers, long minLastSeen) {
+        List<String> ids = new ArrayList<>(drivers.size());
+        for (GeoResult<String> driver : drivers) {
+            ids.add(driver.getContent());
+        }
+        List<Double> lastSeen = driverLocationRepository.lastSeen(ids);
+        List<GeoResult<String>> fresh = new ArrayList<>(drivers.size());
+        for (int i = 0; i < drivers.size(); i++) {
+            Double seenAt = lastSeen != null ? lastSeen.get(i) : null;
+            if (seenAt != null && seenAt >= minLastSeen) {
+                fresh.add(drivers.get(i));
+            }
+        }
+        return fresh;
+    }
+
     @Override
     public GeoResults<String> findDriversNearby(double latitude, double longitude, double radius) {
-        logToKafka("findDriversNearby called for lat: " + latitude + ", lon: " + longitude + ", radius: " + radius);
+        driverLog.debug("findDriversNearby called for lat: " + latitude + ", lon: " + longitude + ", radius: " + radius);
+        return cached("radius", List.of(new Point(longitude, latitude)), radius, radius,
+            misses -> List.of(searchNearby(misses.get(0).getY(), misses.get(0).getX(), radius))).get(0);
+    }
+
+    private GeoResults<String> searchNearby(double latitude, double longitude, double radius) {
+        long maxAgeMillis = TimeUnit.SECONDS.toMillis(geoProperties.getMaxAgeSeconds());
+        long minLastSeen = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+
+        if (geoProperties.isMemoryEngine()) {
+            GeoResults<String> nearby = driverGridIndex.findNearby(latitude, longitude, radius, minLastSeen);
+            driverLog.info("findDriversNearby found " + nearby.getContent().size() + " drivers");
+            return nearby;
+        }
 
         Point center = new Point(longitude, latitude);
         Distance distance = new Distance(radius, Metrics.KILOMETERS);
         Circle circle = new Circle(center, distance);
-        GeoResults<GeoLocation<String>> results = geoOperations.radius(circle);
+        GeoResults<GeoLocation<String>> results = driverLocationRepository.radius(circle);
         List<GeoResult<String>> mapped = results.getContent().stream()
             .map(r -> new GeoResult<>(r.getContent().getName(), r.getDistance()))
             .toList();
+        if (maxAgeMillis > 0 && !mapped.isEmpty()) {
+            mapped = filterFresh(mapped, minLastSeen);
+        }
 
-        logToKafka("findDriversNearby found " + mapped.size() + " drivers");
+        driverLog.info("findDriversNearby found " + mapped.size() + " drivers");
         return new GeoResults<>(mapped);
     }
+
+    @Override
+    public List<GeoResults<String>> findDriversNearby(List<Point> centers, double radius) {
+        driverLog.debug("findDriversNearby called for " + centers.size() + " locations, radius: " + radius);
+        return cached("radius", centers, radius, radius, misses -> searchNearbyAll(misses, radius));
+    }
+
+    private List<GeoResults<String>> searchNearbyAll(List<Point> centers, double radius) {
+        long maxAgeMillis = TimeUnit.SECONDS.toMillis(geoProperties.getMaxAgeSeconds());
+        long minLastSeen = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+
+        if (geoProperties.isMemoryEngine()) {
+            return centers.stream()
+                .map(center -> driverGridIndex.findNearby(center.getY(), center.getX(), radius, minLastSeen))
+                .toList();
+        }
+
+        Distance distance = new Distance(radius, Metrics.KILOMETERS);
+        List<Circle> circles = centers.stream().map(center -> new Circle(center, distance)).toList();
+        List<List<GeoResult<String>>> mapped = driverLocationRepository.radiusAll(circles).stream()
+            .map(results -> results.getContent().stream()
+                .map(r -> new GeoResult<>(r.getContent().getName(), r.getDistance()))
+                .toList())
+            .toList();
+        if (maxAgeMillis > 0) {
+            mapped = filterFreshAll(mapped, minLastSeen);
+        }
+
+        driverLog.info("findDriversNearby found drivers for " + mapped.size() + " locations");
+        return mapped.stream().map(GeoResults::new).toList();
+    }
+
+    /**
+     * Serves each center from the nearby cache when an entry for its cell is still current, and runs
+     * {@code search} once for the remaining cells. Centers sharing a cell share the result computed
+     * for the first of them. The memory engine is already local and skips the cache.
+     */
+    private List<GeoResults<String>> cached(String kind, List<Point> centers, double parameter, double spanKm,
+                                            Function<List<Point>, List<GeoResults<String>>> search) {
+        if (geoProperties.isMemoryEngine() || !nearbyResultCache.isEnabled()) {
+            return search.apply(centers);
+        }
+        List<GeoResults<String>> found = new ArrayList<>(centers.size());
+        Map<NearbyResultCache.Key, List<Integer>> misses = new LinkedHashMap<>();
+        List<Point> missCenters = new ArrayList<>();
+        List<Long> missVersions = new ArrayList<>();
+        for (int i = 0; i < centers.size(); i++) {
+            Point center = centers.get(i);
+            NearbyResultCache.Key key = nearbyResultCache.key(kind, center, parameter);
+            List<Integer> waiting = misses.get(key);
+            if (waiting != null) {
+                waiting.add(i);
+                found.add(null);
+                continue;
+            }
+            long version = nearbyResultCache.version(center, spanKm);
+            GeoResults<String> hit = nearbyResultCache.get(key, version);
+            found.add(hit);
+            if (hit == null) {
+                waiting = new ArrayList<>();
+                waiting.add(i);
+                misses.put(key, waiting);
+                missCenters.add(center);
+                missVersions.add(version);
+            }
+        }
+        if (missCenters.isEmpty()) {
+            return found;
+        }
+        List<GeoResults<String>> searched = search.apply(missCenters);
+        int j = 0;
+        for (Map.Entry<NearbyResultCache.Key, List<Integer>> miss : misses.entrySet()) {
+            GeoResults<String> results = searched.get(j);
+            nearbyResultCache.put(miss.getKey(), results, missVersions.get(j));
+            for (int index : miss.getValue()) {
+                found.set(index, results);
+            }
+            j++;
+        }
+        return found;
+    }
+
+    // Looks up the last ping of every distinct driver across all result lists with a single ZMSCORE
+    private List<List<GeoResult<String>>> filterFreshAll(List<List<GeoResult<String>>> resultLists, long minLastSeen) {
+        List<String> ids = resultLists.stream()
+            .flatMap(List::stream)
+            .map(GeoResult::getContent)
+            .distinct()
+            .toList();
+        if (ids.isEmpty()) {
+            return resultLists;
+        }
+        List<Double> lastSeen = driverLocationRepository.lastSeen(ids);
+        Map<String, Double> lastSeenById = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            Double seenAt = lastSeen != null ? lastSeen.get(i) : null;
+            if (seenAt != null) {
+                lastSeenById.put(ids.get(i), seenAt);
+            }
+        }
+        return resultLists.stream()
+            .map(results -> results.stream()
+                .filter(r -> lastSeenById.getOrDefault(r.getContent(), Double.NEGATIVE_INFINITY) >= minLastSeen)
+                .toList())
+            .toList();
+    }
+
+    @Override
+    public GeoResults<String> findNearestDrivers(double latitude, double longitude, int count) {
+        return findNearestDrivers(List.of(new Point(longitude, latitude)), count).get(0);
+    }
+
+    @Override
+    public List<GeoResults<String>> findNearestDrivers(List<Point> centers, int count) {
+        driverLog.debug("findNearestDrivers called for " + centers.size() + " locations, count: " + count);
+        return cached("nearest", centers, count, geoProperties.getNearestMaxRadiusKm(),
+            misses -> searchNearest(misses, count));
+    }
+
+    private List<GeoResults<String>> searchNearest(List<Point> centers, int count) {
+        long maxAgeMillis = TimeUnit.SECONDS.toMillis(geoProperties.getMaxAgeSeconds());
+        long minLastSeen = maxAgeMillis > 0 ? System.currentTimeMillis() - maxAgeMillis : Long.MIN_VALUE;
+        double maxRadius = geoProperties.getNearestMaxRadiusKm();
+        double growthFactor = geoProperties.getNearestRadiusGrowthFactor();
+
+        List<GeoResults<String>> found = new ArrayList<>(centers.size());
+        List<Integer> pending = new ArrayList<>(centers.size());
+        for (int i = 0; i < centers.size(); i++) {
+            found.add(new GeoResults<>(List.of(), Metrics.KILOMETERS));
+            pending.add(i);
+        }
+
+        double radius = Math.min(geoProperties.getNearestInitialRadiusKm(), maxRadius);
+        while (!pending.isEmpty()) {
+            List<Point> round = pending.stream().map(centers::get).toList();
+            List<List<GeoResult<String>>> results = findNearestWithin(round, radius, count, minLastSeen);
+            List<Integer> stillShort = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                int index = pending.get(i);
+                found.set(index, new GeoResults<>(results.get(i), Metrics.KILOMETERS));
+                if (results.get(i).size() < count) {
+                    stillShort.add(index);
+                }
+            }
+            if (radius >= maxRadius) {
+                break;
+            }
+            pending = stillShort;
+            radius = growthFactor > 1.0 ? Math.min(radius * growthFactor, maxRadius) : maxRadius;
+        }
+
+        driverLog.info("findNearestDrivers finished for " + centers.size() + " locations, last radius: " + radius);
+        return found;
+    }
+
+    private List<List<GeoResult<String>>> findNearestWithin(List<Point> centers, double radius, int count, long minLastSeen) {
+        if (geoProperties.isMemoryEngine()) {
+            return centers.stream()
+                .map(center -> {
+                    List<GeoResult<String>> nearby = driverGridIndex
+                        .findNearby(center.getY(), center.getX(), radius, minLastSeen).getContent();
+                    return nearby.size() > count ? nearby.subList(0, count) : nearby;
+                })
+                .toList();
+        }
+
+        List<List<GeoResult<String>>> mapped = driverLocationRepository.searchNearest(centers, radius, count).stream()
+            .map(results -> results.getContent().stream()
+                .map(r -> new GeoResult<>(r.getContent().getName(), r.getDistance()))
+                .toList())
+            .toList();
+        return minLastSeen != Long.MIN_VALUE ? filterFreshAll(mapped, minLastSeen) : mapped;
+    }
+
+    @Override
+    public void recordTripRequests(List<Point> pickups) {
+        heatmapRecorder.recordTrips(pickups);
+    }
+
+    @Override
+    public HeatmapResponse getHeatmap(long since) {
+        driverLog.debug("getHeatmap called since version " + since);
+        HeatmapResponse heatmap = heatmapRecorder.snapshot(since);
+        driverLog.info("getHeatmap returned " + heatmap.getCells().size() + " cells at version " + heatmap.getVersion());
+        return heatmap;
+    }
 }
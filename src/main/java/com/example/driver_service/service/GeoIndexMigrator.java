@@ -0,0 +1,47 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves drivers still in the unsharded geo keys of earlier versions into their regions on startup,
+ * before {@link DriverGridWarmer} reads the regions. It is a single EXISTS once the old keys are gone.
+ */
+@Component
+public class GeoIndexMigrator {
+    private final DriverLocationRepository driverLocationRepository;
+    private final GeoProperties geoProperties;
+    private final DriverLogShipper driverLog;
+
+    public GeoIndexMigrator(
+        DriverLocationRepository driverLocationRepository,
+        GeoProperties geoProperties,
+        DriverLogShipper driverLog
+    ) {
+        this.driverLocationRepository = driverLocationRepository;
+        this.geoProperties = geoProperties;
+        this.driverLog = driverLog;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public int migrate() {
+        try {
+            int migrated = driverLocationRepository.migrateUnsharded(geoProperties.getSweepBatchSize());
+            if (migrated > 0) {
+                driverLog.info("Moved " + migrated + " drivers from the unsharded geo keys into their regions");
+            }
+            return migrated;
+        } catch (Exception e) {
+            // Drivers left in the old keys come back on their next ping, so startup goes on
+            driverLog.error("Failed to migrate the unsharded geo keys: " + e.getMessage());
+            return 0;
+        }
+    }
+}
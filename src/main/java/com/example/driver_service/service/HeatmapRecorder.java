@@ -0,0 +1,165 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.geo.GeoHash;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.HeatmapProperties;
+import com.example.driver_service.repository.HeatmapRepository;
+import com.example.driver_service.response.HeatmapResponse;
+import jakarta.annotation.PreDestroy;
+import org.springframework.data.geo.Point;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds the heatmap off the request path. Callers only record the latest cell of each driver and
+ * the trip requests per cell in memory; a scheduled flush writes them to {@link HeatmapRepository}
+ * in a few pipelined round trips, so a driver pinging many times per interval costs one update.
+ * A failed flush is logged and its updates are kept for the next one unless newer ones arrived.
+ * The first flush of each demand bucket also rolls the demand window forward, so snapshots never
+ * write to Redis.
+ * Updates for one driver flushed by different replicas in the same interval may land in either
+ * order, so the counts are approximate by design.
+ */
+@Component
+public class HeatmapRecorder {
+    // Pending cell of a driver that is no longer available
+    private static final String REMOVED = "";
+
+    private final HeatmapRepository heatmapRepository;
+    private final HeatmapProperties heatmapProperties;
+    private final DriverLogShipper driverLog;
+    private final ConcurrentHashMap<String, String> pendingCells = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> pendingTrips = new ConcurrentHashMap<>();
+
+    // Last demand bucket this node rolled forward, written by the scheduled flush only
+    private volatile long rolledBucket = -1;
+
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public HeatmapRecorder(HeatmapRepository heatmapRepository, HeatmapProperties heatmapProperties,
+                           DriverLogShipper driverLog) {
+        this.heatmapRepository = heatmapRepository;
+        this.heatmapProperties = heatmapProperties;
+        this.driverLog = driverLog;
+    }
+
+    public boolean isEnabled() {
+        return heatmapProperties.isEnabled();
+    }
+
+    /**
+     * Counts the drivers as available in the cells of their positions from the next flush on.
+     */
+    public void move(Map<String, Point> points) {
+        if (!isEnabled()) {
+            return;
+        }
+        points.forEach((driverId, point) -> pendingCells.put(driverId, cellOf(point)));
+    }
+
+    /**
+     * Stops counting the drivers as available, for drivers that went OFF or stopped pinging.
+     */
+    public void remove(Collection<String> driverIds) {
+        if (!isEnabled()) {
+            return;
+        }
+        driverIds.forEach(driverId -> pendingCells.put(driverId, REMOVED));
+    }
+
+    /**
+     * Counts one trip request in the cell of each pickup.
+     */
+    public void recordTrips(List<Point> pickups) {
+        if (!isEnabled()) {
+            return;
+        }
+        pickups.forEach(pickup -> pendingTrips.merge(cellOf(pickup), 1L, Long::sum));
+    }
+
+    public HeatmapResponse snapshot(long since) {
+        if (!isEnabled()) {
+            HeatmapResponse response = new HeatmapResponse();
+            response.setFull(true);
+            response.setCells(List.of());
+            return response;
+        }
+        return heatmapRepository.snapshot(since);
+    }
+
+    @Scheduled(fixedDelayString = "${driver.heatmap.flush-interval-ms:1000}")
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        long bucket = heatmapRepository.currentBucket();
+        if (bucket > rolledBucket) {
+            try {
+                heatmapRepository.rollDemand(bucket);
+                rolledBucket = bucket;
+            } catch (Exception e) {
+                driverLog.warn("Failed to roll the heatmap demand window to bucket " + bucket + ": " + e.getMessage());
+            }
+        }
+        if (!pendingCells.isEmpty()) {
+            Map<String, String> cells = new HashMap<>(pendingCells);
+            // Only drop entries that did not change meanwhile; newer ones go out with the next flush
+            cells.forEach(pendingCells::remove);
+            try {
+                heatmapRepository.updateSupply(cells);
+                flushed.add(cells.size());
+            } catch (Exception e) {
+                failed.add(cells.size());
+                cells.forEach(pendingCells::putIfAbsent);
+                driverLog.warn("Failed to flush " + cells.size() + " driver cells to the heatmap: " + e.getMessage());
+            }
+        }
+        if (!pendingTrips.isEmpty()) {
+            Map<String, Long> trips = new HashMap<>();
+            for (String cell : new ArrayList<>(pendingTrips.keySet())) {
+                Long count = pendingTrips.remove(cell);
+                if (count != null) {
+                    trips.put(cell, count);
+                }
+            }
+            try {
+                heatmapRepository.recordTrips(trips);
+                flushed.add(trips.size());
+            } catch (Exception e) {
+                failed.add(trips.size());
+                trips.forEach((cell, count) -> pendingTrips.merge(cell, count, Long::sum));
+                driverLog.warn("Failed to flush trip requests of " + trips.size() + " cells to the heatmap: " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public long getFlushedCount() {
+        return flushed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public int getPendingSize() {
+        return pendingCells.size() + pendingTrips.size();
+    }
+
+    private String cellOf(Point point) {
+        return GeoHash.encode(point.getY(), point.getX(), heatmapProperties.getPrecision());
+    }
+}
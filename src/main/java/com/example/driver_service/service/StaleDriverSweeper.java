@@ -0,0 +1,72 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes drivers whose app stopped sending pings from the geo index.
+ * Redis GEO members cannot expire on their own, so staleness is tracked in a companion
+ * last-seen sorted set and swept here in bounded batches.
+ */
+@Component
+public class StaleDriverSweeper {
+    private final DriverLocationRepository driverLocationRepository;
+    private final DriverGridIndex driverGridIndex;
+    private final GeoProperties geoProperties;
+    private final DriverLogShipper driverLog;
+    private final LocationWriteFilter locationWriteFilter;
+    private final HeatmapRecorder heatmapRecorder;
+    private final NearbyResultCache nearbyResultCache;
+
+    public StaleDriverSweeper(
+        DriverLocationRepository driverLocationRepository,
+        DriverGridIndex driverGridIndex,
+        GeoProperties geoProperties,
+        DriverLogShipper driverLog,
+        LocationWriteFilter locationWriteFilter,
+        HeatmapRecorder heatmapRecorder,
+        NearbyResultCache nearbyResultCache
+    ) {
+        this.driverLocationRepository = driverLocationRepository;
+        this.driverGridIndex = driverGridIndex;
+        this.geoProperties = geoProperties;
+        this.driverLog = driverLog;
+        this.locationWriteFilter = locationWriteFilter;
+        this.heatmapRecorder = heatmapRecorder;
+        this.nearbyResultCache = nearbyResultCache;
+    }
+
+    @Scheduled(fixedDelayString = "${driver.geo.sweep-interval-ms:30000}")
+    public int sweep() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(geoProperties.getStaleAfterSeconds());
+        int batchSize = geoProperties.getSweepBatchSize();
+        int removed = 0;
+        List<String> batch;
+        do {
+            batch = driverLocationRepository.removeStale(cutoff, batchSize);
+            batch.forEach(driverGridIndex::remove);
+            // Their next ping has to be written, or they would stay out of active_drivers
+            batch.forEach(locationWriteFilter::forget);
+            heatmapRecorder.remove(batch);
+            nearbyResultCache.onRemove(batch);
+            removed += batch.size();
+        } while (batch.size() == batchSize);
+        // The grid also holds drivers loaded at startup that never pinged this node again
+        removed += driverGridIndex.removeOlderThan(cutoff);
+        locationWriteFilter.removeOlderThan(cutoff);
+
+        if (removed > 0) {
+            driverLog.info("Removed " + removed + " stale drivers from active_drivers");
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.driver_service.websocket;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connected driver with a bounded outbound queue.
+ * Callers only enqueue; at most one send task per session runs on the shared executor, so a slow
+ * client never blocks the fan-out and frames to the same driver stay in order. When the queue is
+ * full the oldest pending offer is dropped, since a newer offer is more likely to still be open.
+ */
+public class DriverSession {
+    private final String driverId;
+    private final WebSocketSession session;
+    private final BlockingQueue<Outbound> queue;
+    private final Executor executor;
+    private final TripOfferMetrics metrics;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    DriverSession(String driverId, WebSocketSession session, int queueCapacity, Executor executor, TripOfferMetrics metrics) {
+        this.driverId = driverId;
+        this.session = session;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    public String getDriverId() {
+        return driverId;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    void enqueue(TextMessage message, long enqueuedAtNanos) {
+        Outbound outbound = new Outbound(message, enqueuedAtNanos);
+        while (!queue.offer(outbound)) {
+            if (queue.poll() != null) {
+                metrics.dropped();
+            }
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Outbound outbound;
+            while (session.isOpen() && (outbound = queue.poll()) != null) {
+                session.sendMessage(outbound.message());
+                metrics.delivered(System.nanoTime() - outbound.enqueuedAtNanos());
+            }
+        } catch (IOException | IllegalStateException e) {
+            metrics.failed();
+            queue.clear();
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+        } finally {
+            draining.set(false);
+        }
+        // An offer may have arrived after the last poll but before the flag was cleared
+        if (session.isOpen() && !queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    void closeQuietly(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException ignored) {
+            // the connection is already gone
+        }
+    }
+
+    private record Outbound(TextMessage message, long enqueuedAtNanos) {
+    }
+}
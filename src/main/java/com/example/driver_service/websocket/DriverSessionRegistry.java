@@ -0,0 +1,77 @@
+package com.example.driver_service.websocket;
+
+import com.example.driver_service.properties.WebSocketProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connected drivers on this node keyed by driverId, plus the shared pool that writes their frames.
+ */
+@Component
+public class DriverSessionRegistry {
+    private final Map<String, DriverSession> sessions = new ConcurrentHashMap<>();
+    private final WebSocketProperties properties;
+    private final TripOfferMetrics metrics;
+    private final ExecutorService sendExecutor;
+
+    public DriverSessionRegistry(WebSocketProperties properties, TripOfferMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = Executors.newFixedThreadPool(properties.getSendThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "trip-offer-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void register(String driverId, WebSocketSession session) {
+        DriverSession previous = sessions.put(driverId,
+                new DriverSession(driverId, session, properties.getQueueCapacity(), sendExecutor, metrics));
+        // A reconnecting app replaces its old connection
+        if (previous != null && previous.getSession() != session) {
+            previous.closeQuietly(CloseStatus.POLICY_VIOLATION.withReason("Replaced by a newer connection"));
+        }
+    }
+
+    public void unregister(String driverId, WebSocketSession session) {
+        sessions.computeIfPresent(driverId, (id, current) -> current.getSession() == session ? null : current);
+    }
+
+    /**
+     * Queues the message for the driver without blocking.
+     *
+     * @return false when the driver has no open connection on this node
+     */
+    public boolean send(String driverId, TextMessage message, long enqueuedAtNanos) {
+        DriverSession session = sessions.get(driverId);
+        if (session == null || !session.getSession().isOpen()) {
+            return false;
+        }
+        session.enqueue(message, enqueuedAtNanos);
+        return true;
+    }
+
+    public boolean isConnected(String driverId) {
+        return sessions.containsKey(driverId);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdownNow();
+        sessions.values().forEach(session -> session.closeQuietly(CloseStatus.GOING_AWAY));
+    }
+}
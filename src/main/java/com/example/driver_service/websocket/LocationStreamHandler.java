@@ -0,0 +1,107 @@
+package com.example.driver_service.websocket;
+
+import com.example.driver_service.geo.GeoUtils;
+import com.example.driver_service.request.BulkDriverLocationRequest;
+import com.example.driver_service.request.DriverLocationUpdate;
+import com.example.driver_service.service.DriverService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Binary location stream for driver apps. The connection is authenticated once at handshake and
+ * the driver id is taken from that principal, so frames carry only fixed-size big-endian records:
+ * <pre>
+ *   offset 0  double latitude
+ *   offset 8  double longitude
+ *   offset 16 long   client timestamp (epoch millis)
+ * </pre>
+ * A frame may hold several records; they go through the same update path as {@code PUT /locations},
+ * so a whole frame costs one status lookup and one pipelined write.
+ */
+@Component
+public class LocationStreamHandler extends BinaryWebSocketHandler {
+    public static final int RECORD_BYTES = 24;
+    private static final String DRIVER_ID = "driverId";
+    private static final String LAST_TIMESTAMP = "lastTimestamp";
+
+    private final DriverService driverService;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder outOfOrder = new LongAdder();
+
+    public LocationStreamHandler(DriverService driverService) {
+        this.driverService = driverService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Principal principal = session.getPrincipal();
+        if (principal == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Authentication required"));
+            return;
+        }
+        session.getAttributes().put(DRIVER_ID, principal.getName());
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        String driverId = (String) session.getAttributes().get(DRIVER_ID);
+        ByteBuffer payload = message.getPayload();
+        if (driverId == null || payload.remaining() == 0 || payload.remaining() % RECORD_BYTES != 0) {
+            rejected.increment();
+            session.close(CloseStatus.BAD_DATA.withReason("Expected " + RECORD_BYTES + "-byte location records"));
+            return;
+        }
+
+        long lastTimestamp = (long) session.getAttributes().getOrDefault(LAST_TIMESTAMP, Long.MIN_VALUE);
+        List<DriverLocationUpdate> updates = new ArrayList<>(payload.remaining() / RECORD_BYTES);
+        while (payload.remaining() >= RECORD_BYTES) {
+            double latitude = payload.getDouble();
+            double longitude = payload.getDouble();
+            long timestamp = payload.getLong();
+            if (!GeoUtils.isValidCoordinate(latitude, longitude)) {
+                rejected.increment();
+                continue;
+            }
+            // Records replayed after a reconnect must not move the driver back in time
+            if (timestamp <= lastTimestamp) {
+                outOfOrder.increment();
+                continue;
+            }
+            lastTimestamp = timestamp;
+            DriverLocationUpdate update = new DriverLocationUpdate();
+            update.setDriverId(driverId);
+            update.setLatitude(latitude);
+            update.setLongitude(longitude);
+            updates.add(update);
+        }
+        session.getAttributes().put(LAST_TIMESTAMP, lastTimestamp);
+        if (!updates.isEmpty()) {
+            BulkDriverLocationRequest request = new BulkDriverLocationRequest();
+            request.setLocations(updates);
+            driverService.updateDriverLocations(request);
+            accepted.add(updates.size());
+        }
+    }
+
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getOutOfOrderCount() {
+        return outOfOrder.sum();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.driver_service.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for trip offer delivery. Latency is measured from fan-out to the frame being written and
+ * recorded in a timer with a percentile histogram, so dashboards can read its p99.
+ */
+@Component
+public class TripOfferMetrics {
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder notConnected = new LongAdder();
+    private final Timer latency;
+
+    public TripOfferMetrics(MeterRegistry registry) {
+        this.latency = Timer.builder("driver.trip.offers.latency")
+                .description("Time from trip offer fan-out to the frame being written")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    void offered() {
+        offered.increment();
+    }
+
+    void delivered(long latencyNanos) {
+        delivered.increment();
+        latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    void notConnected() {
+        notConnected.increment();
+    }
+
+    public long getOffered() {
+        return offered.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getNotConnected() {
+        return notConnected.sum();
+    }
+
+    public Timer getLatency() {
+        return latency;
+    }
+}
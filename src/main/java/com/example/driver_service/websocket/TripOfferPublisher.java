@@ -0,0 +1,52 @@
+package com.example.driver_service.websocket;
+
+import com.example.driver_service.event.CreateTripEvent;
+import com.example.driver_service.response.TripOfferMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.Collection;
+
+/**
+ * Fans a trip offer out to candidate drivers connected to this node.
+ * The payload is serialized once per trip and the same frame is queued for every driver.
+ */
+@Component
+public class TripOfferPublisher {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DriverSessionRegistry registry;
+    private final TripOfferMetrics metrics;
+
+    public TripOfferPublisher(DriverSessionRegistry registry, TripOfferMetrics metrics) {
+        this.registry = registry;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the number of drivers the offer was queued for
+     */
+    public int offer(CreateTripEvent event, Collection<String> driverIds) throws JsonProcessingException {
+        TripOfferMessage offer = new TripOfferMessage();
+        offer.setTripId(event.getTripId());
+        offer.setUserId(event.getUserId());
+        offer.setOrigin(event.getOrigin());
+        offer.setDestination(event.getDestination());
+        offer.setLatitude(event.getLatitude());
+        offer.setLongitude(event.getLongitude());
+        TextMessage message = new TextMessage(objectMapper.writeValueAsString(offer));
+
+        long now = System.nanoTime();
+        int queued = 0;
+        for (String driverId : driverIds) {
+            metrics.offered();
+            if (registry.send(driverId, message, now)) {
+                queued++;
+            } else {
+                metrics.notConnected();
+            }
+        }
+        return queued;
+    }
+}
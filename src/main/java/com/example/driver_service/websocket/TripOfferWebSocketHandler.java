@@ -0,0 +1,50 @@
+package com.example.driver_service.websocket;
+
+import com.example.driver_service.properties.WebSocketProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.security.Principal;
+
+/**
+ * Drivers connect here to receive trip offers. The handshake goes through the JWT filter,
+ * so the authenticated user id identifies the driver.
+ */
+@Component
+public class TripOfferWebSocketHandler extends TextWebSocketHandler {
+    // Tomcat's limit for a blocking frame write, so a stalled client only holds a sender thread briefly
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final DriverSessionRegistry registry;
+    private final WebSocketProperties properties;
+
+    public TripOfferWebSocketHandler(DriverSessionRegistry registry, WebSocketProperties properties) {
+        this.registry = registry;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Principal principal = session.getPrincipal();
+        if (principal == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Authentication required"));
+            return;
+        }
+        if (session instanceof StandardWebSocketSession standardSession) {
+            standardSession.getNativeSession().getUserProperties()
+                    .put(BLOCKING_SEND_TIMEOUT, properties.getSendTimeoutMs());
+        }
+        registry.register(principal.getName(), session);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Principal principal = session.getPrincipal();
+        if (principal != null) {
+            registry.unregister(principal.getName(), session);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.driver_service.client;
+
+import com.example.driver_service.DTO.UserDTO;
+import com.example.driver_service.properties.UserProfileProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserProfileCacheTest {
+
+    private final UserClient userClient = mock(UserClient.class);
+
+    private UserProfileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        UserProfileProperties properties = new UserProfileProperties();
+        properties.setCacheRefreshAfterSeconds(0);
+        cache = new UserProfileCache(userClient, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getCurrentUser_ShouldCallUserServiceOncePerUser() {
+        // Arrange
+        authenticateAs("user123");
+        when(userClient.getUserInfo()).thenReturn(user("John Doe"));
+
+        // Act
+        UserDTO first = cache.getCurrentUser();
+        UserDTO second = cache.getCurrentUser();
+
+        // Assert
+        assertEquals("John Doe", first.getName());
+        assertSame(first, second);
+        verify(userClient, times(1)).getUserInfo();
+        assertEquals(0.5, cache.getHitRatio(), 0.0001);
+    }
+
+    @Test
+    void getCurrentUser_WithConcurrentMisses_ShouldCoalesceIntoOneRemoteCall() throws Exception {
+        // Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        when(userClient.getUserInfo()).thenAnswer(invocation -> {
+            loading.await();
+            return user("John Doe");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<UserDTO>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> {
+                authenticateAs("user123");
+                return cache.getCurrentUser();
+            }));
+        }
+        Thread.sleep(100);
+        loading.countDown();
+
+        // Assert
+        for (Future<UserDTO> result : results) {
+            assertEquals("John Doe", result.get().getName());
+        }
+        verify(userClient, times(1)).getUserInfo();
+        executor.shutdown();
+    }
+
+    @Test
+    void getCurrentUser_WithoutAuthentication_ShouldBypassCache() {
+        // Arrange
+        when(userClient.getUserInfo()).thenReturn(user("John Doe"));
+
+        // Act
+        cache.getCurrentUser();
+        cache.getCurrentUser();
+
+        // Assert
+        verify(userClient, times(2)).getUserInfo();
+        assertEquals(0, cache.getSize());
+    }
+
+    private void authenticateAs(String userId) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userId, "token", AuthorityUtils.NO_AUTHORITIES));
+    }
+
+    private UserDTO user(String name) {
+        UserDTO user = new UserDTO();
+        user.setName(name);
+        return user;
+    }
+}
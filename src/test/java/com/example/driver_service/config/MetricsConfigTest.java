@@ -0,0 +1,54 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsConfigTest {
+
+    private final MetricsConfig metricsConfig = new MetricsConfig();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void driverGeoMeters_ShouldReportActiveDriversAndSavedWrites() {
+        // Arrange
+        DriverLocationRepository driverLocationRepository = mock(DriverLocationRepository.class);
+        when(driverLocationRepository.countActive()).thenReturn(42L);
+        GeoProperties geoProperties = new GeoProperties();
+        LocationWriteFilter locationWriteFilter = new LocationWriteFilter(geoProperties);
+        locationWriteFilter.recordWrite("driver1", 10.76, 106.66, 0);
+        locationWriteFilter.isRedundant("driver1", 10.76, 106.66, 1_000);
+
+        // Act
+        metricsConfig.driverGeoMeters(driverLocationRepository, new DriverGridIndex(geoProperties), locationWriteFilter)
+            .bindTo(registry);
+
+        // Assert
+        assertEquals(42.0, registry.get("driver.geo.active").gauge().value());
+        assertEquals(1.0, registry.get("driver.location.writes").tag("result", "skipped").functionCounter().count());
+        assertEquals(1.0, registry.get("driver.location.writes").tag("result", "written").functionCounter().count());
+    }
+
+    @Test
+    void timedAspect_ShouldTimeEveryRedisRepositoryCall() {
+        // Arrange
+        DriverLocationRepository target = mock(DriverLocationRepository.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(metricsConfig.timedAspect(registry));
+        DriverLocationRepository proxy = factory.getProxy();
+
+        // Act
+        proxy.countActive();
+
+        // Assert
+        assertEquals(1, registry.get("driver.redis").tag("method", "countActive").timer().count());
+    }
+}
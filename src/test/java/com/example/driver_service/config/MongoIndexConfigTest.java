@@ -0,0 +1,37 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.model.Driver;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MongoIndexConfigTest {
+
+    @Test
+    void ensureIndexes_ShouldCreateUniqueDriverIdIndex() {
+        // Arrange
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(mongoTemplate.getConverter())
+            .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+        when(mongoTemplate.indexOps(Driver.class)).thenReturn(indexOperations);
+        ArgumentCaptor<IndexDefinition> index = ArgumentCaptor.forClass(IndexDefinition.class);
+
+        // Act
+        new MongoIndexConfig(mongoTemplate).ensureIndexes();
+
+        // Assert
+        verify(indexOperations).ensureIndex(index.capture());
+        assertEquals(new Document("driverId", 1), index.getValue().getIndexKeys());
+        assertEquals(true, index.getValue().getIndexOptions().get("unique"));
+    }
+}
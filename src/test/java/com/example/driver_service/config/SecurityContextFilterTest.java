@@ -0,0 +1,90 @@
+package com.example.driver_service.config;
+
+import com.example.driver_service.properties.JwtProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecurityContextFilterTest {
+    private static final String SECRET = "MySuperSecretKey12345678901234567890";
+
+    private SecurityContextFilter filter;
+    private final FilterChain chain = (request, response) -> { };
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties jwtProperties = new JwtProperties();
+        ReflectionTestUtils.setField(jwtProperties, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtProperties, "jwtHeader", "Authorization");
+        filter = new SecurityContextFilter(jwtProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithSameTokenTwice_ShouldVerifyOnceAndServeSecondFromCache() throws Exception {
+        // Arrange
+        String token = token(SECRET, System.currentTimeMillis() + 60_000);
+
+        // Act
+        Authentication first = authenticate(token);
+        Authentication second = authenticate(token);
+
+        // Assert
+        assertEquals("driver123", first.getPrincipal());
+        assertSame(first, second);
+        assertEquals(1, filter.getTokenCacheStats().missCount());
+        assertEquals(1, filter.getTokenCacheStats().hitCount());
+    }
+
+    @Test
+    void doFilter_WithExpiredToken_ShouldRejectAndNotCache() {
+        // Arrange
+        String token = token(SECRET, System.currentTimeMillis() - 1_000);
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> authenticate(token));
+        assertEquals(0, filter.getTokenCacheSize());
+    }
+
+    @Test
+    void doFilter_WithForeignSignature_ShouldReject() {
+        // Arrange
+        String token = token("AnotherSecretKeyThatIsLongEnough1234567890", System.currentTimeMillis() + 60_000);
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> authenticate(token));
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private String token(String secret, long expiresAtMillis) {
+        return Jwts.builder()
+                .claim("userId", "driver123")
+                .claim("authorities", "ROLE_DRIVER")
+                .setExpiration(new Date(expiresAtMillis))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes()))
+                .compact();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.driver_service.eventListener;
+
+import com.example.driver_service.event.CreateTripEvent;
+import com.example.driver_service.properties.DispatchProperties;
+import com.example.driver_service.service.DriverService;
+import com.example.driver_service.websocket.TripOfferPublisher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.geo.*;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CreateTripListenerTest {
+
+    @Mock
+    private DriverService driverService;
+
+    @Mock
+    private TripOfferPublisher tripOfferPublisher;
+
+    @Spy
+    private DispatchProperties dispatchProperties = new DispatchProperties();
+
+    @InjectMocks
+    private CreateTripListener listener;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listenTripCreated_ShouldLookUpNearestDriversForTheWholeBatchAtOnce() throws Exception {
+        // Arrange
+        ArgumentCaptor<List<Point>> pickups = ArgumentCaptor.forClass(List.class);
+        when(driverService.findNearestDrivers(pickups.capture(), eq(10))).thenReturn(List.of(
+            new GeoResults<>(List.of(new GeoResult<>("driver1", new Distance(1.0, Metrics.KILOMETERS)))),
+            new GeoResults<>(List.of())
+        ));
+
+        // Act
+        listener.listenTripCreated(List.of(tripJson("trip1"), tripJson("trip2")));
+
+        // Assert
+        assertEquals(2, pickups.getValue().size());
+        assertEquals(new Point(106.66, 10.76), pickups.getValue().get(0));
+        verify(tripOfferPublisher).offer(argThat(event -> "trip1".equals(event.getTripId())), eq(List.of("driver1")));
+        verify(tripOfferPublisher, never()).offer(argThat(event -> "trip2".equals(event.getTripId())), anyList());
+        verify(driverService).recordTripRequests(pickups.getValue());
+    }
+
+    @Test
+    void listenTripCreated_WithMalformedRecord_ShouldDispatchEarlierRecordsAndReportItsIndex() throws Exception {
+        // Arrange
+        when(driverService.findNearestDrivers(anyList(), eq(10))).thenReturn(List.of(
+            new GeoResults<>(List.of(new GeoResult<>("driver1", new Distance(1.0, Metrics.KILOMETERS))))
+        ));
+
+        // Act
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+            () -> listener.listenTripCreated(List.of(tripJson("trip1"), "not json", tripJson("trip3"))));
+
+        // Assert
+        assertEquals(1, exception.getIndex());
+        verify(tripOfferPublisher).offer(any(CreateTripEvent.class), eq(List.of("driver1")));
+        verify(driverService).findNearestDrivers(argThat((List<Point> points) -> points.size() == 1), eq(10));
+    }
+
+    @Test
+    void listenTripCreated_WithNumericAndOutOfRangeCoordinates_ShouldReportOnlyTheInvalidRecord() throws Exception {
+        // Arrange
+        when(driverService.findNearestDrivers(anyList(), eq(10))).thenReturn(List.of(
+            new GeoResults<>(List.of(new GeoResult<>("driver1", new Distance(1.0, Metrics.KILOMETERS))))
+        ));
+        String numeric = "{\"tripId\":\"trip1\",\"latitude\":10.76,\"longitude\":106.66}";
+        String outOfRange = "{\"tripId\":\"trip2\",\"latitude\":95.0,\"longitude\":106.66}";
+
+        // Act
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+            () -> listener.listenTripCreated(List.of(numeric, outOfRange)));
+
+        // Assert
+        assertEquals(1, exception.getIndex());
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        verify(driverService).findNearestDrivers(eq(List.of(new Point(106.66, 10.76))), eq(10));
+    }
+
+    private String tripJson(String tripId) {
+        return "{\"tripId\":\"" + tripId + "\",\"userId\":\"user1\",\"origin\":\"A\",\"destination\":\"B\","
+            + "\"latitude\":\"10.76\",\"longitude\":\"106.66\"}";
+    }
+}
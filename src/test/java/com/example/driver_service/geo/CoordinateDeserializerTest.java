@@ -0,0 +1,49 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.request.DriverLocationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinateDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void deserialize_WithNumbersOrQuotedNumbers_ShouldReadTheSameDoubles() throws Exception {
+        // Act
+        DriverLocationRequest numeric = objectMapper.readValue(
+            "{\"latitude\":10.762622,\"longitude\":106}", DriverLocationRequest.class);
+        DriverLocationRequest quoted = objectMapper.readValue(
+            "{\"latitude\":\" 10.762622\",\"longitude\":\"106\"}", DriverLocationRequest.class);
+
+        // Assert
+        assertEquals(10.762622, numeric.getLatitude());
+        assertEquals(106.0, numeric.getLongitude());
+        assertEquals(numeric, quoted);
+    }
+
+    @Test
+    void deserialize_WithMissingNullOrBlankValues_ShouldYieldNaN() throws Exception {
+        // Act
+        DriverLocationRequest request = objectMapper.readValue(
+            "{\"latitude\":null,\"detailLocation\":\"\"}", DriverLocationRequest.class);
+        DriverLocationRequest blank = objectMapper.readValue(
+            "{\"latitude\":\"\",\"longitude\":\"  \"}", DriverLocationRequest.class);
+
+        // Assert
+        assertTrue(Double.isNaN(request.getLatitude()));
+        assertTrue(Double.isNaN(request.getLongitude()));
+        assertTrue(Double.isNaN(blank.getLatitude()));
+        assertFalse(GeoUtils.isValidCoordinate(blank.getLatitude(), blank.getLongitude()));
+    }
+
+    @Test
+    void deserialize_WithNonNumericString_ShouldFailMapping() {
+        // Act & Assert
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue(
+            "{\"latitude\":\"north\",\"longitude\":106.66}", DriverLocationRequest.class));
+    }
+}
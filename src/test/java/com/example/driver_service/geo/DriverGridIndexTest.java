@@ -0,0 +1,116 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.properties.GeoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.GeoResults;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriverGridIndexTest {
+
+    private DriverGridIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DriverGridIndex(new GeoProperties());
+    }
+
+    @Test
+    void findNearby_ShouldReturnDriversInsideRadiusSortedByDistance() {
+        // Arrange
+        index.update("far", 10.800000, 106.660172);
+        index.update("near", 10.763000, 106.660172);
+        index.update("outside", 11.500000, 106.660172);
+
+        // Act
+        GeoResults<String> result = index.findNearby(10.762622, 106.660172, 5.0);
+
+        // Assert
+        List<GeoResult<String>> content = result.getContent();
+        assertEquals(2, content.size());
+        assertEquals("near", content.get(0).getContent());
+        assertEquals("far", content.get(1).getContent());
+        assertTrue(content.get(0).getDistance().getValue() < content.get(1).getDistance().getValue());
+    }
+
+    @Test
+    void update_WhenDriverMovesAcrossCells_ShouldOnlyKeepLatestPosition() {
+        // Arrange
+        index.update("driver1", 10.762622, 106.660172);
+
+        // Act
+        index.update("driver1", 21.028511, 105.804817);
+
+        // Assert
+        assertEquals(1, index.size());
+        assertTrue(index.findNearby(10.762622, 106.660172, 5.0).getContent().isEmpty());
+        assertEquals(1, index.findNearby(21.028511, 105.804817, 1.0).getContent().size());
+        assertEquals(new Point(105.804817, 21.028511), index.position("driver1"));
+    }
+
+    @Test
+    void remove_ShouldCompactCellAndKeepOtherDrivers() {
+        // Arrange
+        index.update("driver1", 10.762622, 106.660172);
+        index.update("driver2", 10.762700, 106.660200);
+        index.update("driver3", 10.762800, 106.660300);
+
+        // Act
+        index.remove("driver1");
+
+        // Assert
+        assertEquals(2, index.size());
+        List<GeoResult<String>> content = index.findNearby(10.762622, 106.660172, 1.0).getContent();
+        assertEquals(2, content.size());
+        assertTrue(content.stream().noneMatch(r -> r.getContent().equals("driver1")));
+    }
+
+    @Test
+    void findNearby_ShouldWrapAroundTheAntimeridian() {
+        // Arrange
+        index.update("east", 0.0, 179.999);
+
+        // Act
+        GeoResults<String> result = index.findNearby(0.0, -179.999, 5.0);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+    }
+
+    @Test
+    void load_ShouldKeepLastSeenTimeAndNeverOverwriteALivePing() {
+        // Arrange
+        index.update("live", 10.762622, 106.660172);
+
+        // Act
+        boolean loadedLive = index.load("live", 10.800000, 106.700000, 1_000);
+        boolean loadedStale = index.load("stale", 10.762622, 106.660172, 1_000);
+
+        // Assert
+        assertFalse(loadedLive);
+        assertTrue(loadedStale);
+        assertEquals(new Point(106.660172, 10.762622), index.position("live"));
+        assertEquals(1, index.removeOlderThan(2_000));
+        assertNull(index.position("stale"));
+    }
+
+    @Test
+    void removeIfOlderThan_WhenDriverPingedAfterTheScan_ShouldKeepIt() {
+        // Arrange
+        index.load("driver1", 10.762622, 106.660172, 1_000);
+        index.update("driver1", 10.770000, 106.670000);
+
+        // Act
+        boolean removed = index.removeIfOlderThan("driver1", 2_000);
+
+        // Assert
+        assertFalse(removed);
+        assertEquals(new Point(106.670000, 10.770000), index.position("driver1"));
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.driver_service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoHashTest {
+
+    @Test
+    void encode_ShouldMatchReferenceGeohash() {
+        // Act & Assert
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("u4pruy", GeoHash.encode(57.64911, 10.40744, 6));
+    }
+
+    @Test
+    void encode_ForNearbyPoints_ShouldShareTheCellAtLowPrecision() {
+        // Act
+        String first = GeoHash.encode(10.762622, 106.660172, 6);
+        String second = GeoHash.encode(10.762700, 106.660250, 6);
+        String farAway = GeoHash.encode(21.028511, 105.804817, 6);
+
+        // Assert
+        assertEquals(first, second);
+        assertNotEquals(first, farAway);
+    }
+
+    @Test
+    void center_ShouldLieInsideTheCellAndEncodeBackToIt() {
+        // Act
+        double[] center = GeoHash.center("u4pruy");
+
+        // Assert
+        assertEquals(57.6496, center[0], 0.003);
+        assertEquals(10.4095, center[1], 0.006);
+        assertEquals("u4pruy", GeoHash.encode(center[0], center[1], 6));
+    }
+}
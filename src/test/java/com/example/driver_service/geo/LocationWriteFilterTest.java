@@ -0,0 +1,58 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.properties.GeoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocationWriteFilterTest {
+
+    private LocationWriteFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setMinMoveMeters(15);
+        geoProperties.setMaxWriteIntervalSeconds(60);
+        filter = new LocationWriteFilter(geoProperties);
+    }
+
+    @Test
+    void isRedundant_ShouldSkipSmallMovesUntilTheWriteIntervalPasses() {
+        // Arrange
+        filter.recordWrite("driver1", 10.762622, 106.660172, 0);
+
+        // Act & Assert
+        assertTrue(filter.isRedundant("driver1", 10.762700, 106.660172, 30_000));
+        assertFalse(filter.isRedundant("driver1", 10.762700, 106.660172, 60_000));
+        assertFalse(filter.isRedundant("driver1", 10.763000, 106.660172, 30_000));
+        assertFalse(filter.isRedundant("driver2", 10.762622, 106.660172, 30_000));
+        assertEquals(1, filter.getSkippedCount());
+    }
+
+    @Test
+    void forget_ShouldForceTheNextWrite() {
+        // Arrange
+        filter.recordWrite("driver1", 10.762622, 106.660172, 0);
+
+        // Act
+        filter.forget("driver1");
+
+        // Assert
+        assertFalse(filter.isRedundant("driver1", 10.762622, 106.660172, 1_000));
+    }
+
+    @Test
+    void isRedundant_WhenDisabled_ShouldAlwaysWrite() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setMinMoveMeters(0);
+        LocationWriteFilter disabled = new LocationWriteFilter(geoProperties);
+        disabled.recordWrite("driver1", 10.762622, 106.660172, 0);
+
+        // Act & Assert
+        assertFalse(disabled.isRedundant("driver1", 10.762622, 106.660172, 1_000));
+        assertEquals(0, disabled.size());
+    }
+}
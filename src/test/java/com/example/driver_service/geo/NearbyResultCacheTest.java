@@ -0,0 +1,97 @@
+package com.example.driver_service.geo;
+
+import com.example.driver_service.properties.GeoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearbyResultCacheTest {
+
+    private static final Point CENTER = new Point(106.660172, 10.762622);
+
+    private NearbyResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new NearbyResultCache(new GeoProperties());
+    }
+
+    @Test
+    void key_ShouldGroupCentersInTheSameCellAndSeparateParameters() {
+        // Act & Assert
+        assertEquals(cache.key("radius", CENTER, 5.0), cache.key("radius", new Point(106.66005, 10.76205), 5.0));
+        assertNotEquals(cache.key("radius", CENTER, 5.0), cache.key("radius", new Point(106.6615, 10.762622), 5.0));
+        assertNotEquals(cache.key("radius", CENTER, 5.0), cache.key("radius", CENTER, 3.0));
+        assertNotEquals(cache.key("radius", CENTER, 5.0), cache.key("nearest", CENTER, 5.0));
+    }
+
+    @Test
+    void get_AfterWriteInsideSearchArea_ShouldMissAndCountAsMiss() {
+        // Arrange
+        NearbyResultCache.Key key = cache.key("radius", CENTER, 5.0);
+        GeoResults<String> results = new GeoResults<>(List.of());
+        cache.put(key, results, cache.version(CENTER, 5.0));
+
+        // Act
+        GeoResults<String> beforeWrite = cache.get(key, cache.version(CENTER, 5.0));
+        cache.onWrite(10.79, 106.68);
+        GeoResults<String> afterWrite = cache.get(key, cache.version(CENTER, 5.0));
+
+        // Assert
+        assertSame(results, beforeWrite);
+        assertNull(afterWrite);
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    void get_AfterWriteOutsideSearchArea_ShouldStillHit() {
+        // Arrange
+        NearbyResultCache.Key key = cache.key("radius", CENTER, 5.0);
+        GeoResults<String> results = new GeoResults<>(List.of());
+        cache.put(key, results, cache.version(CENTER, 5.0));
+
+        // Act
+        cache.onWrite(21.028511, 105.804817);
+
+        // Assert
+        assertSame(results, cache.get(key, cache.version(CENTER, 5.0)));
+    }
+
+    @Test
+    void onRemove_ShouldDropOnlyResultsListingTheDriver() {
+        // Arrange
+        Point other = new Point(105.804817, 21.028511);
+        NearbyResultCache.Key withDriver = cache.key("radius", CENTER, 5.0);
+        NearbyResultCache.Key withoutDriver = cache.key("radius", other, 5.0);
+        cache.put(withDriver, new GeoResults<>(List.of(new GeoResult<>("driver1", new Distance(1.0)))),
+            cache.version(CENTER, 5.0));
+        cache.put(withoutDriver, new GeoResults<>(List.of(new GeoResult<>("driver2", new Distance(1.0)))),
+            cache.version(other, 5.0));
+
+        // Act
+        cache.onRemove(List.of("driver1"));
+
+        // Assert
+        assertNull(cache.get(withDriver, cache.version(CENTER, 5.0)));
+        assertNotNull(cache.get(withoutDriver, cache.version(other, 5.0)));
+    }
+
+    @Test
+    void isEnabled_WhenTtlIsZero_ShouldBeFalse() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setNearbyCacheTtlMs(0);
+
+        // Act & Assert
+        assertFalse(new NearbyResultCache(geoProperties).isEnabled());
+        assertTrue(cache.isEnabled());
+    }
+}
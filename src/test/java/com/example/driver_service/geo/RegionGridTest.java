@@ -0,0 +1,32 @@
+package com.example.driver_service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionGridTest {
+
+    private final RegionGrid grid = new RegionGrid(1.0);
+
+    @Test
+    void regionsWithin_ShouldOnlyReturnTheContainingRegionForSmallCircles() {
+        // Act
+        List<String> regions = grid.regionsWithin(10.5, 106.5, 5.0);
+
+        // Assert
+        assertEquals(List.of(grid.regionOf(10.5, 106.5)), regions);
+    }
+
+    @Test
+    void regionsWithin_ShouldWrapAroundTheAntimeridian() {
+        // Act
+        List<String> regions = grid.regionsWithin(0.5, 179.99, 5.0);
+
+        // Assert
+        assertEquals(2, regions.size());
+        assertTrue(regions.contains(grid.regionOf(0.5, 179.5)));
+        assertTrue(regions.contains(grid.regionOf(0.5, -179.5)));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.driver_service.history;
+
+import com.example.driver_service.model.DriverLocationHistory;
+import com.example.driver_service.properties.HistoryProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LocationHistoryWriterTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulkOperations = mock(BulkOperations.class);
+
+    private LocationHistoryWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void record_ShouldFlushFullBatchAsOneUnorderedBulkInsert() {
+        // Arrange
+        HistoryProperties properties = new HistoryProperties();
+        properties.setBatchSize(3);
+        properties.setFlushIntervalMs(60_000);
+        when(mongoTemplate.collectionExists(DriverLocationHistory.class)).thenReturn(false);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DriverLocationHistory.class)).thenReturn(bulkOperations);
+        List<DriverLocationHistory> inserted = new ArrayList<>();
+        when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            // The writer reuses its batch list, so copy it before it is cleared
+            inserted.addAll(invocation.getArgument(0));
+            return bulkOperations;
+        });
+        writer = new LocationHistoryWriter(mongoTemplate, properties);
+        writer.start();
+
+        // Act
+        writer.record("driver1", 10.76, 106.66, 1_000);
+        writer.record("driver2", 10.77, 106.67, 1_000);
+        writer.record("driver1", 10.78, 106.68, 2_000);
+
+        // Assert
+        verify(bulkOperations, timeout(2000)).execute();
+        assertEquals(3, inserted.size());
+        assertEquals("driver2", inserted.get(1).getDriverId());
+        verify(mongoTemplate).createCollection(DriverLocationHistory.class);
+    }
+
+    @Test
+    void shutdown_ShouldFlushPartialBatch() throws InterruptedException {
+        // Arrange
+        HistoryProperties properties = new HistoryProperties();
+        properties.setFlushIntervalMs(60_000);
+        when(mongoTemplate.collectionExists(DriverLocationHistory.class)).thenReturn(true);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DriverLocationHistory.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        writer = new LocationHistoryWriter(mongoTemplate, properties);
+        writer.start();
+
+        // Act
+        writer.record("driver1", 10.76, 106.66, 1_000);
+        writer.shutdown();
+
+        // Assert
+        verify(bulkOperations).execute();
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(0, writer.getQueueSize());
+    }
+
+    @Test
+    void record_WhenDisabled_ShouldNotQueueAnything() {
+        // Arrange
+        HistoryProperties properties = new HistoryProperties();
+        properties.setEnabled(false);
+        writer = new LocationHistoryWriter(mongoTemplate, properties);
+        writer.start();
+
+        // Act
+        writer.record("driver1", 10.76, 106.66, 1_000);
+
+        // Assert
+        assertEquals(0, writer.getRecordedCount());
+        assertEquals(0, writer.getQueueSize());
+    }
+}
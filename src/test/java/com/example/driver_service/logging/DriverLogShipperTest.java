@@ -0,0 +1,103 @@
+package com.example.driver_service.logging;
+
+import com.example.driver_service.ENUM.LogLevel;
+import com.example.driver_service.properties.LogProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.apache.kafka.clients.producer.Producer;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DriverLogShipperTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+
+    private DriverLogShipper shipper;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (shipper != null) {
+            shipper.shutdown();
+        }
+    }
+
+    @Test
+    void log_ShouldShipJsonRecordFromBackgroundThread() throws Exception {
+        // Arrange
+        shipper = new DriverLogShipper(kafkaTemplate, new LogProperties());
+        shipper.start();
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+
+        // Act
+        shipper.info("Driver \"d1\" is now available");
+
+        // Assert
+        verify(kafkaTemplate, timeout(2000)).send(eq("driver-logs"), messageCaptor.capture());
+        JsonNode json = new ObjectMapper().readTree(messageCaptor.getValue());
+        assertEquals("Driver \"d1\" is now available", json.get("message").asText());
+        assertEquals("INFO", json.get("level").asText());
+        assertEquals("driver-service", json.get("service_name").asText());
+        assertNotNull(json.get("timestamp"));
+    }
+
+    @Test
+    void log_BelowMinLevel_ShouldBeFilteredWithoutReachingKafka() throws Exception {
+        // Arrange
+        LogProperties properties = new LogProperties();
+        properties.setMinLevel(LogLevel.INFO);
+        shipper = new DriverLogShipper(kafkaTemplate, properties);
+        shipper.start();
+
+        // Act
+        shipper.debug("noise");
+        shipper.shutdown();
+
+        // Assert
+        assertEquals(1, shipper.getFilteredCount());
+        verify(kafkaTemplate, never()).send(anyString(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shutdown_WithOwnProducerFactory_ShouldFlushAndDestroyIt() throws Exception {
+        // Arrange
+        DefaultKafkaProducerFactory<String, String> producerFactory = mock(DefaultKafkaProducerFactory.class);
+        Producer<String, String> producer = mock(Producer.class);
+        when(producerFactory.createProducer()).thenReturn(producer);
+        shipper = new DriverLogShipper(producerFactory, new LogProperties());
+        shipper.start();
+
+        // Act
+        shipper.shutdown();
+
+        // Assert
+        verify(producer).flush();
+        verify(producerFactory).destroy();
+    }
+
+    @Test
+    void ringBuffer_WhenFull_ShouldRejectOffers() {
+        // Arrange
+        LogRingBuffer<String> buffer = new LogRingBuffer<>(4);
+
+        // Act
+        for (int i = 0; i < buffer.capacity(); i++) {
+            assertTrue(buffer.offer("record" + i));
+        }
+
+        // Assert
+        assertFalse(buffer.offer("overflow"));
+        assertEquals("record0", buffer.poll());
+        assertTrue(buffer.offer("overflow"));
+        assertEquals(buffer.capacity(), buffer.size());
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.ENUM.Status;
+import com.example.driver_service.properties.GeoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.geo.*;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.GeoOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DriverLocationRepositoryTest {
+
+    // Region of 10.76, 106.66 with the default one-degree cells
+    private static final String REGION = "100:286";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private DriverLocationRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new DriverLocationRepository(redisTemplate, new GeoProperties());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void radius_NearRegionBorder_ShouldMergeBothRegionsNearestFirst() {
+        // Arrange
+        Circle circle = new Circle(new Point(106.66, 10.99), new Distance(5.0, Metrics.KILOMETERS));
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(
+            rawResults("south", 3.0), rawResults("north", 1.0)));
+
+        // Act
+        GeoResults<RedisGeoCommands.GeoLocation<String>> result = repository.radius(circle);
+
+        // Assert
+        assertEquals(List.of("north", "south"), result.getContent().stream().map(r -> r.getContent().getName()).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void radiusAll_ShouldDecodeRawPipelinedRepliesInOrder() {
+        // Arrange
+        Circle first = new Circle(new Point(106.66, 10.76), new Distance(5.0, Metrics.KILOMETERS));
+        Circle second = new Circle(new Point(106.70, 10.50), new Distance(5.0, Metrics.KILOMETERS));
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+            .thenReturn(List.of(rawResults("driver1", 0.3), new GeoResults<>(List.of())));
+
+        // Act
+        List<GeoResults<RedisGeoCommands.GeoLocation<String>>> results = repository.radiusAll(List.of(first, second));
+
+        // Assert
+        assertEquals(2, results.size());
+        assertEquals("driver1", results.get(0).getContent().get(0).getContent().getName());
+        assertEquals(0.3, results.get(0).getContent().get(0).getDistance().getValue());
+        assertTrue(results.get(1).getContent().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveAll_WhenDriverCrossedIntoAnotherRegion_ShouldRemoveItFromTheOldOne() {
+        // Arrange
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of("99:286"));
+
+        // Act
+        repository.saveAll(Map.of("driver1", new Point(106.66, 10.76)));
+
+        // Assert
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveAll_WhenDriverStaysInRegion_ShouldUseOneRoundTrip() {
+        // Arrange
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(REGION));
+
+        // Act
+        repository.saveAll(Map.of("driver1", new Point(106.66, 10.76)));
+
+        // Assert
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void saveAll_WhenRegionWasDroppedFromActiveRegions_ShouldRegisterItAgainAfterRefresh() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setRegionRefreshIntervalMs(0);
+        repository = new DriverLocationRepository(redisTemplate, geoProperties);
+        ArgumentCaptor<SessionCallback<Object>> callbacks = ArgumentCaptor.forClass(SessionCallback.class);
+        when(redisTemplate.executePipelined(callbacks.capture()))
+            .thenReturn(Arrays.asList(REGION, null, null, 1L, Set.of(REGION)))
+            .thenReturn(Arrays.asList(REGION, null, null, Set.of()))
+            .thenReturn(Arrays.asList(REGION, null, null, 1L, Set.of(REGION)));
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        when(operations.opsForValue()).thenReturn(valueOperations);
+        when(operations.opsForGeo()).thenReturn(mock(GeoOperations.class));
+        when(operations.opsForZSet()).thenReturn(mock(ZSetOperations.class));
+        when(operations.opsForSet()).thenReturn(setOperations);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            repository.saveAll(Map.of("driver1", new Point(106.66, 10.76)));
+        }
+
+        // Assert
+        for (SessionCallback<Object> callback : callbacks.getAllValues()) {
+            callback.execute(operations);
+        }
+        verify(setOperations, times(2)).add("active_regions", REGION);
+        verify(setOperations, times(3)).members("active_regions");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void park_ShouldMoveFromActiveToOfflineWithinTheDriversRegion() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("driver_region:driver123")).thenReturn(REGION);
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        when(redisTemplate.execute(any(RedisScript.class), keysCaptor.capture(), eq("driver123"))).thenReturn(1L);
+
+        // Act
+        boolean parked = repository.park("driver123");
+
+        // Assert
+        assertTrue(parked);
+        assertEquals(List.of("active_drivers:{100:286}", "offline_drivers:{100:286}", "active_drivers_last_seen:{100:286}"),
+            keysCaptor.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void park_WhenDriverNeverReportedALocation_ShouldDoNothing() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // Act & Assert
+        assertFalse(repository.park("driver123"));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void removeStale_ShouldPassCutoffAndRemainingLimitToEachRegion() {
+        // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members("active_regions")).thenReturn(Set.of(REGION));
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        when(redisTemplate.execute(any(RedisScript.class), keysCaptor.capture(), eq("1000"), eq("50")))
+            .thenReturn(List.of("driver1", "driver2"));
+
+        // Act
+        List<String> removed = repository.removeStale(1000L, 50);
+
+        // Assert
+        assertEquals(List.of("driver1", "driver2"), removed);
+        assertEquals(List.of("active_drivers:{100:286}", "active_drivers_last_seen:{100:286}"), keysCaptor.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void migrateUnsharded_ShouldMoveOnlyDriversWithoutARegionAndDeleteTheOldKeys() {
+        // Arrange
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        GeoOperations<String, String> geoOperations = mock(GeoOperations.class);
+        when(redisTemplate.countExistingKeys(anyCollection())).thenReturn(2L);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForGeo()).thenReturn(geoOperations);
+        when(zSetOperations.zCard("active_drivers")).thenReturn(2L);
+        when(zSetOperations.rangeWithScores("active_drivers", 0, 499)).thenReturn(new LinkedHashSet<>(List.of(
+            ZSetOperations.TypedTuple.of("driver1", 11.0), ZSetOperations.TypedTuple.of("driver2", 22.0))));
+        when(geoOperations.position("active_drivers", "driver1", "driver2"))
+            .thenReturn(List.of(new Point(106.66, 10.76), new Point(106.66, 10.76)));
+        when(zSetOperations.score("active_drivers_last_seen", "driver1", "driver2")).thenReturn(Arrays.asList(1000.0, null));
+        ArgumentCaptor<SessionCallback<Object>> callbacks = ArgumentCaptor.forClass(SessionCallback.class);
+        when(redisTemplate.executePipelined(callbacks.capture()))
+            .thenReturn(List.of(true, false))
+            .thenReturn(List.of());
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        ZSetOperations<String, String> pipelinedZSet = mock(ZSetOperations.class);
+        when(operations.opsForValue()).thenReturn(valueOperations);
+        when(operations.opsForZSet()).thenReturn(pipelinedZSet);
+        when(operations.opsForSet()).thenReturn(setOperations);
+
+        // Act
+        int migrated = repository.migrateUnsharded(500);
+
+        // Assert
+        assertEquals(1, migrated);
+        callbacks.getAllValues().get(0).execute(operations);
+        callbacks.getAllValues().get(1).execute(operations);
+        verify(valueOperations).setIfAbsent("driver_region:driver1", REGION);
+        verify(valueOperations).setIfAbsent("driver_region:driver2", REGION);
+        verify(pipelinedZSet).addIfAbsent("active_drivers:{100:286}", "driver1", 11.0);
+        verify(pipelinedZSet).addIfAbsent("active_drivers_last_seen:{100:286}", "driver1", 1000.0);
+        verifyNoMoreInteractions(pipelinedZSet);
+        verify(redisTemplate).delete(List.of("active_drivers", "offline_drivers", "active_drivers_last_seen"));
+    }
+
+    @Test
+    void migrateUnsharded_WithoutLegacyKeys_ShouldOnlyCheckThem() {
+        // Arrange
+        when(redisTemplate.countExistingKeys(anyCollection())).thenReturn(0L);
+
+        // Act & Assert
+        assertEquals(0, repository.migrateUnsharded(500));
+        verify(redisTemplate).countExistingKeys(anyCollection());
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    private GeoResults<RedisGeoCommands.GeoLocation<byte[]>> rawResults(String driverId, double distanceKm) {
+        return new GeoResults<>(List.of(new GeoResult<>(
+            new RedisGeoCommands.GeoLocation<>(driverId.getBytes(StandardCharsets.UTF_8), new Point(106.66, 10.76)),
+            new Distance(distanceKm, Metrics.KILOMETERS))), Metrics.KILOMETERS);
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.properties.HeatmapProperties;
+import com.example.driver_service.response.HeatmapResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HeatmapRepositoryTest {
+
+    // Region of the u4pru* cells with the default one-degree regions
+    private static final String REGION = "147:190";
+    private static final int WINDOW = 3;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisOperations<String, String> operations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    private HeatmapRepository repository;
+
+    private LuaRedis lua;
+
+    @BeforeEach
+    void setUp() {
+        HeatmapProperties heatmapProperties = new HeatmapProperties();
+        heatmapProperties.setDemandWindowBuckets(WINDOW);
+        repository = new HeatmapRepository(redisTemplate, heatmapProperties, new GeoProperties());
+        lua = new LuaRedis();
+    }
+
+    @Test
+    void regionOfCell_ShouldUseTheRegionOfTheCellCenter() {
+        // Act & Assert
+        assertEquals(REGION, repository.regionOfCell("u4pruy"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateSupply_WhenDriverLeftItsRegion_ShouldClearItThereAndCountItInTheNewOne() {
+        // Arrange
+        ArgumentCaptor<SessionCallback<Object>> callbacks = ArgumentCaptor.forClass(SessionCallback.class);
+        when(redisTemplate.executePipelined(callbacks.capture())).thenReturn(Arrays.asList("99:286", null));
+
+        // Act
+        repository.updateSupply(Map.of("driver1", "u4pruy"));
+
+        // Assert
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+        callbacks.getAllValues().get(1).execute(operations);
+        verify(operations).execute(eq(HeatmapRepository.UPDATE_SUPPLY_SCRIPT), eq(supplyKeys(REGION)),
+            eq("driver1"), eq("u4pruy"));
+        verify(operations).execute(eq(HeatmapRepository.UPDATE_SUPPLY_SCRIPT), eq(supplyKeys("99:286")),
+            eq("driver1"), eq(""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateSupply_WhenRemovingDriverNeverCounted_ShouldSkipTheScripts() {
+        // Arrange
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(Arrays.asList((Object) null));
+
+        // Act
+        repository.updateSupply(Map.of("driver1", ""));
+
+        // Assert
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshot_ShouldMergeRegionsAtTheEarliestRedisTime() {
+        // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members(HeatmapRepository.REGIONS_KEY)).thenReturn(new LinkedHashSet<>(List.of(REGION, "100:286")));
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(
+            List.of("1700000002000", "u4pruy", "3", "1"),
+            List.of("1700000001500", "w3gv2f", "0", "2")));
+
+        // Act
+        HeatmapResponse heatmap = repository.snapshot(1700000000000L);
+
+        // Assert
+        assertEquals(1700000001500L, heatmap.getVersion());
+        assertFalse(heatmap.isFull());
+        assertEquals(2, heatmap.getCells().size());
+        assertEquals("u4pruy", heatmap.getCells().get(0).getGeohash());
+        assertEquals(3, heatmap.getCells().get(0).getAvailableDrivers());
+        assertEquals(1, heatmap.getCells().get(0).getRecentTrips());
+        assertEquals(0, heatmap.getCells().get(1).getAvailableDrivers());
+    }
+
+    @Test
+    void snapshot_WithoutRegions_ShouldKeepTheClientsVersion() {
+        // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members(HeatmapRepository.REGIONS_KEY)).thenReturn(Set.of());
+
+        // Act
+        HeatmapResponse heatmap = repository.snapshot(42);
+
+        // Assert
+        assertEquals(42, heatmap.getVersion());
+        assertTrue(heatmap.getCells().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rollDemand_ShouldRollEveryRegionInOnePipeline() {
+        // Arrange
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members(HeatmapRepository.REGIONS_KEY)).thenReturn(new LinkedHashSet<>(List.of(REGION, "100:286")));
+        ArgumentCaptor<SessionCallback<Object>> callback = ArgumentCaptor.forClass(SessionCallback.class);
+        when(redisTemplate.executePipelined(callback.capture())).thenReturn(List.of(1L, 1L));
+
+        // Act
+        repository.rollDemand(103);
+
+        // Assert
+        callback.getValue().execute(operations);
+        verify(operations).execute(eq(HeatmapRepository.ROLL_DEMAND_SCRIPT), eq(repository.demandKeys(REGION, 103)),
+            eq("103"), eq(String.valueOf(WINDOW)));
+        verify(operations).execute(eq(HeatmapRepository.ROLL_DEMAND_SCRIPT), eq(repository.demandKeys("100:286", 103)),
+            eq("103"), eq(String.valueOf(WINDOW)));
+    }
+
+    @Test
+    void updateSupplyScript_WhenDriverMovesBetweenCells_ShouldMoveItsCount() {
+        // Act
+        lua.eval(HeatmapRepository.UPDATE_SUPPLY_SCRIPT, supplyKeys(REGION), "driver1", "u4pruy", "driver2", "u4pruy");
+        lua.eval(HeatmapRepository.UPDATE_SUPPLY_SCRIPT, supplyKeys(REGION), "driver1", "u4pruz");
+
+        // Assert
+        assertEquals(Map.of("u4pruy", "1", "u4pruz", "1"), lua.hash(HeatmapRepository.supplyKey(REGION)));
+        assertEquals("u4pruz", lua.hash(HeatmapRepository.driverCellsKey(REGION)).get("driver1"));
+    }
+
+    @Test
+    void updateSupplyScript_WhenDriverIsRemoved_ShouldDropTheEmptyCellAndMarkItChanged() {
+        // Arrange
+        lua.eval(HeatmapRepository.UPDATE_SUPPLY_SCRIPT, supplyKeys(REGION), "driver1", "u4pruy");
+        lua.nowMillis += 5;
+
+        // Act
+        lua.eval(HeatmapRepository.UPDATE_SUPPLY_SCRIPT, supplyKeys(REGION), "driver1", "");
+
+        // Assert
+        assertTrue(lua.hash(HeatmapRepository.supplyKey(REGION)).isEmpty());
+        assertTrue(lua.hash(HeatmapRepository.driverCellsKey(REGION)).isEmpty());
+        assertEquals((double) lua.nowMillis, lua.sortedSets.get(HeatmapRepository.changesKey(REGION)).get("u4pruy"));
+    }
+
+    @Test
+    void rollDemandScript_ShouldSubtractBucketsThatLeftTheWindow() {
+        // Arrange
+        record(100, "u4pruy", 2);
+        record(101, "u4pruz", 1);
+
+        // Act
+        roll(103);
+        List<Object> reply = snapshot(0);
+
+        // Assert
+        assertEquals(List.of("u4pruz", "0", "1"), reply.subList(1, reply.size()));
+        assertEquals(Map.of("u4pruz", "1"), lua.hash(HeatmapRepository.demandKey(REGION)));
+    }
+
+    @Test
+    void rollDemandScript_AfterIdleGap_ShouldRebuildTotalsAndReportOldCellsAsChanged() {
+        // Arrange
+        record(100, "u4pruy", 2);
+        long version = lua.nowMillis + 1;
+        lua.nowMillis += 600_000;
+
+        // Act
+        roll(110);
+        List<Object> reply = snapshot(version);
+
+        // Assert
+        assertEquals(List.of("u4pruy", "0", "0"), reply.subList(1, reply.size()));
+        assertTrue(lua.hash(HeatmapRepository.demandKey(REGION)).isEmpty());
+    }
+
+    @Test
+    void recordDemandScript_ForBucketAlreadyOutOfTheWindow_ShouldDropTheCounts() {
+        // Arrange
+        roll(110);
+
+        // Act
+        Object stamp = record(105, "u4pruy", 1);
+
+        // Assert
+        assertEquals(0L, stamp);
+        assertTrue(lua.hash(HeatmapRepository.demandKey(REGION)).isEmpty());
+        assertTrue(lua.hash(HeatmapRepository.demandKey(REGION) + ":105").isEmpty());
+    }
+
+    @Test
+    void recordDemandScript_FromCallerWithSlowerClock_ShouldCountInItsBucketWithoutRollingBack() {
+        // Arrange
+        record(101, "u4pruy", 1);
+
+        // Act
+        record(100, "u4pruy", 1);
+        roll(103);
+        List<Object> reply = snapshot(0);
+
+        // Assert
+        assertEquals(List.of("u4pruy", "0", "1"), reply.subList(1, reply.size()));
+        assertEquals(7L * 60, lua.ttls.get(HeatmapRepository.demandKey(REGION) + ":100"));
+    }
+
+    @Test
+    void snapshotScript_WithVersion_ShouldOnlyReturnCellsChangedSince() {
+        // Arrange
+        record(100, "u4pruy", 1);
+        lua.nowMillis += 1000;
+        long version = lua.nowMillis;
+        record(100, "u4pruz", 1);
+
+        // Act
+        List<Object> reply = snapshot(version);
+
+        // Assert
+        assertEquals(String.valueOf(lua.nowMillis), reply.get(0));
+        assertEquals(List.of("u4pruz", "0", "1"), reply.subList(1, reply.size()));
+    }
+
+    @Test
+    void snapshotScript_AfterBucketsLeftTheWindow_ShouldNotWrite() {
+        // Arrange
+        record(100, "u4pruy", 2);
+        lua.nowMillis += 600_000;
+        Map<String, Map<String, String>> hashes = copyOf(lua.hashes);
+        Map<String, Map<String, Double>> sortedSets = copyOf(lua.sortedSets);
+
+        // Act
+        List<Object> reply = snapshot(0);
+
+        // Assert
+        assertEquals(List.of("u4pruy", "0", "2"), reply.subList(1, reply.size()));
+        assertEquals(hashes, lua.hashes);
+        assertEquals(sortedSets, lua.sortedSets);
+    }
+
+    private Object record(long bucket, Object... cellCounts) {
+        List<Object> args = new ArrayList<>(List.of(bucket, WINDOW, 7L * 60));
+        args.addAll(Arrays.asList(cellCounts));
+        return lua.eval(HeatmapRepository.RECORD_DEMAND_SCRIPT, repository.demandKeys(REGION, bucket), args.toArray());
+    }
+
+    private void roll(long bucket) {
+        lua.eval(HeatmapRepository.ROLL_DEMAND_SCRIPT, repository.demandKeys(REGION, bucket), bucket, WINDOW);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> snapshot(long since) {
+        return (List<Object>) lua.eval(HeatmapRepository.SNAPSHOT_SCRIPT, HeatmapRepository.snapshotKeys(REGION), since);
+    }
+
+    private static <V> Map<String, Map<String, V>> copyOf(Map<String, Map<String, V>> maps) {
+        Map<String, Map<String, V>> copy = new HashMap<>();
+        maps.forEach((key, map) -> copy.put(key, new HashMap<>(map)));
+        return copy;
+    }
+
+    private static List<String> supplyKeys(String region) {
+        return List.of(HeatmapRepository.driverCellsKey(region), HeatmapRepository.supplyKey(region),
+            HeatmapRepository.changesKey(region));
+    }
+}
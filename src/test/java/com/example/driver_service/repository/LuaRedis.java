@@ -0,0 +1,161 @@
+package com.example.driver_service.repository;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.ZeroArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the repositories' Lua scripts in LuaJ against in-memory hashes and sorted sets, with the
+ * reply conventions of Redis: nil replies become {@code false}, integer replies become numbers.
+ * Like Redis Cluster, it rejects any key the script did not declare in KEYS. Only the commands the
+ * scripts use are implemented.
+ */
+class LuaRedis {
+    final Map<String, Map<String, String>> hashes = new HashMap<>();
+    final Map<String, Map<String, Double>> sortedSets = new HashMap<>();
+    final Map<String, Long> ttls = new HashMap<>();
+    long nowMillis = 1_700_000_000_000L;
+    private List<String> declaredKeys = List.of();
+
+    /**
+     * Executes the script and converts the reply: numbers to {@link Long}, strings to {@link String},
+     * tables to lists and {@code false} to {@code null}.
+     */
+    Object eval(RedisScript<?> script, List<String> keys, Object... args) {
+        Globals globals = JsePlatform.standardGlobals();
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs varargs) {
+                List<String> command = new ArrayList<>();
+                for (int i = 1; i <= varargs.narg(); i++) {
+                    command.add(varargs.arg(i).tojstring());
+                }
+                return execute(command);
+            }
+        });
+        redis.set("replicate_commands", new ZeroArgFunction() {
+            @Override
+            public LuaValue call() {
+                return LuaValue.TRUE;
+            }
+        });
+        globals.set("redis", redis);
+        declaredKeys = keys;
+        globals.set("KEYS", table(keys));
+        List<String> argv = new ArrayList<>();
+        for (Object arg : args) {
+            argv.add(String.valueOf(arg));
+        }
+        globals.set("ARGV", table(argv));
+        return toJava(globals.load(script.getScriptAsString()).call());
+    }
+
+    Map<String, String> hash(String key) {
+        return hashes.getOrDefault(key, Map.of());
+    }
+
+    private LuaValue execute(List<String> command) {
+        String key = command.size() > 1 ? command.get(1) : null;
+        if (key != null && !declaredKeys.contains(key)) {
+            throw new IllegalStateException("Script touched undeclared key " + key);
+        }
+        switch (command.get(0).toUpperCase()) {
+            case "TIME":
+                return table(List.of(String.valueOf(nowMillis / 1000), String.valueOf(nowMillis % 1000 * 1000)));
+            case "HGET": {
+                String value = hash(key).get(command.get(2));
+                return value == null ? LuaValue.FALSE : LuaValue.valueOf(value);
+            }
+            case "HSET":
+                hashes.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(command.get(2), command.get(3));
+                return LuaValue.valueOf(1);
+            case "HDEL": {
+                Map<String, String> hash = hashes.get(key);
+                boolean removed = hash != null && hash.remove(command.get(2)) != null;
+                if (hash != null && hash.isEmpty()) {
+                    hashes.remove(key);
+                }
+                return LuaValue.valueOf(removed ? 1 : 0);
+            }
+            case "HINCRBY": {
+                Map<String, String> hash = hashes.computeIfAbsent(key, k -> new LinkedHashMap<>());
+                long value = Long.parseLong(hash.getOrDefault(command.get(2), "0")) + Long.parseLong(command.get(3));
+                hash.put(command.get(2), String.valueOf(value));
+                return LuaValue.valueOf(value);
+            }
+            case "HGETALL": {
+                List<String> reply = new ArrayList<>();
+                hash(key).forEach((field, value) -> {
+                    reply.add(field);
+                    reply.add(value);
+                });
+                return table(reply);
+            }
+            case "HKEYS":
+                return table(new ArrayList<>(hash(key).keySet()));
+            case "DEL":
+                hashes.remove(key);
+                sortedSets.remove(key);
+                ttls.remove(key);
+                return LuaValue.valueOf(1);
+            case "EXPIRE":
+                ttls.put(key, Long.parseLong(command.get(2)));
+                return LuaValue.valueOf(1);
+            case "ZADD":
+                sortedSets.computeIfAbsent(key, k -> new HashMap<>()).put(command.get(3), Double.parseDouble(command.get(2)));
+                return LuaValue.valueOf(1);
+            case "ZRANGE":
+                return table(range(key, Double.NEGATIVE_INFINITY));
+            case "ZRANGEBYSCORE":
+                return table(range(key, Double.parseDouble(command.get(2))));
+            default:
+                throw new UnsupportedOperationException(command.get(0));
+        }
+    }
+
+    // Members scored at least min, in score order; every script call passes +inf as the maximum
+    private List<String> range(String key, double min) {
+        return sortedSets.getOrDefault(key, Map.of()).entrySet().stream()
+                .filter(e -> e.getValue() >= min)
+                .sorted(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static LuaTable table(List<String> values) {
+        LuaTable table = new LuaTable();
+        for (int i = 0; i < values.size(); i++) {
+            table.set(i + 1, LuaValue.valueOf(values.get(i)));
+        }
+        return table;
+    }
+
+    private static Object toJava(LuaValue value) {
+        if (value.isboolean() || value.isnil()) {
+            return value.toboolean() ? 1L : null;
+        }
+        if (value.type() == LuaValue.TNUMBER) {
+            return value.tolong();
+        }
+        if (value.istable()) {
+            List<Object> list = new ArrayList<>();
+            for (int i = 1; i <= value.length(); i++) {
+                list.add(toJava(value.get(i)));
+            }
+            return list;
+        }
+        return value.tojstring();
+    }
+}
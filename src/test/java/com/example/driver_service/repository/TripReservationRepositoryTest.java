@@ -0,0 +1,69 @@
+package com.example.driver_service.repository;
+
+import com.example.driver_service.properties.DispatchProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TripReservationRepositoryTest {
+
+    private static final List<String> KEYS = List.of("trip_reservation:trip1");
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    private TripReservationRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new TripReservationRepository(redisTemplate, new DispatchProperties());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reserve_ShouldClaimTripInOneScriptCall() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq("driver1"), eq("900"))).thenReturn(1L);
+
+        // Act
+        TripReservationRepository.Reservation reservation = repository.reserve("trip1", "driver1");
+
+        // Assert
+        assertEquals(TripReservationRepository.Reservation.RESERVED, reservation);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reserve_WhenAnotherDriverHoldsTheTrip_ShouldReportItTaken() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), any(Object[].class))).thenReturn(0L);
+
+        // Act & Assert
+        assertEquals(TripReservationRepository.Reservation.TAKEN, repository.reserve("trip1", "driver1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void release_ShouldDeleteTheClaimOnlyForItsOwner() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq("driver1"))).thenReturn(1L);
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq("driver2"))).thenReturn(0L);
+
+        // Act & Assert
+        assertTrue(repository.release("trip1", "driver1"));
+        assertFalse(repository.release("trip1", "driver2"));
+    }
+}
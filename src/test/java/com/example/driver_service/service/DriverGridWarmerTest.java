@@ -0,0 +1,74 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import com.example.driver_service.repository.DriverLocationRepository.ActiveDriver;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Point;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DriverGridWarmerTest {
+
+    private final DriverLocationRepository driverLocationRepository = mock(DriverLocationRepository.class);
+    private final DriverLogShipper driverLog = mock(DriverLogShipper.class);
+
+    @Test
+    void warm_WithMemoryEngine_ShouldLoadFreshDriversFromRedis() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        DriverGridIndex gridIndex = new DriverGridIndex(geoProperties);
+        long now = System.currentTimeMillis();
+        when(driverLocationRepository.activeSince(anyLong())).thenReturn(List.of(
+            new ActiveDriver("driver1", new Point(106.66, 10.76), now),
+            new ActiveDriver("driver2", new Point(106.70, 10.80), now)));
+        DriverGridWarmer warmer = new DriverGridWarmer(driverLocationRepository, gridIndex, geoProperties, driverLog);
+
+        // Act
+        int loaded = warmer.warm();
+
+        // Assert
+        assertEquals(2, loaded);
+        assertEquals(new Point(106.66, 10.76), gridIndex.position("driver1"));
+        assertEquals(1, gridIndex.findNearby(10.76, 106.66, 1.0).getContent().size());
+    }
+
+    @Test
+    void warm_WithRedisEngine_ShouldNotReadTheGeoIndex() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        DriverGridWarmer warmer = new DriverGridWarmer(driverLocationRepository, new DriverGridIndex(geoProperties),
+            geoProperties, driverLog);
+
+        // Act
+        int loaded = warmer.warm();
+
+        // Assert
+        assertEquals(0, loaded);
+        verifyNoInteractions(driverLocationRepository);
+    }
+
+    @Test
+    void warm_WhenRedisFails_ShouldLogAndKeepStarting() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        when(driverLocationRepository.activeSince(anyLong())).thenThrow(new RuntimeException("Redis down"));
+        DriverGridWarmer warmer = new DriverGridWarmer(driverLocationRepository, new DriverGridIndex(geoProperties),
+            geoProperties, driverLog);
+
+        // Act
+        int loaded = warmer.warm();
+
+        // Assert
+        assertEquals(0, loaded);
+        verify(driverLog).error(contains("Redis down"));
+    }
+}
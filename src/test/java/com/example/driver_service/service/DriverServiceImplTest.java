@@ -3,9 +3,26 @@ package com.example.driver_service.service;
 import com.example.driver_service.DTO.UserDTO;
 import com.example.driver_service.ENUM.Status;
 import com.example.driver_service.client.UserClient;
+import com.example.driver_service.client.UserProfileCache;
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.history.LocationHistoryWriter;
+import com.example.driver_service.logging.DriverLogShipper;
 import com.example.driver_service.model.Driver;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.properties.UserProfileProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
 import com.example.driver_service.repository.DriverRepository;
+import com.example.driver_service.repository.DriverStatusRepository;
+import com.example.driver_service.repository.TripReservationRepository;
+import com.example.driver_service.request.BulkDriverLocationRequest;
+import com.example.driver_service.request.BulkDriverStatusRequest;
 import com.example.driver_service.request.DriverLocationRequest;
+import com.example.driver_service.request.DriverLocationUpdate;
+import com.example.driver_service.request.DriverStatusUpdate;
+import com.example.driver_service.response.BulkDriverLocationResponse;
+import com.example.driver_service.response.BulkDriverStatusResponse;
 import com.example.driver_service.response.DriverLocationResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,12 +33,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.geo.*;
 import org.springframework.data.redis.connection.RedisGeoCommands;
-import org.springframework.data.redis.core.BoundGeoOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -40,10 +61,28 @@ class DriverServiceImplTest {
     private KafkaTemplate<String, String> kafkaTemplate;
 
     @Mock
-    private RedisTemplate<String, String> redisTemplate;
+    private DriverLocationRepository driverLocationRepository;
 
     @Mock
-    private BoundGeoOperations<String, String> geoOperations;
+    private DriverLogShipper driverLogShipper;
+
+    @Mock
+    private DriverStatusRepository driverStatusRepository;
+
+    @Mock
+    private LocationHistoryWriter locationHistoryWriter;
+
+    @Mock
+    private TripReservationRepository tripReservationRepository;
+
+    @Mock
+    private HeatmapRecorder heatmapRecorder;
+
+    private GeoProperties geoProperties;
+
+    private DriverGridIndex driverGridIndex;
+
+    private LocationWriteFilter locationWriteFilter;
 
     private DriverServiceImpl driverService;
 
@@ -53,21 +92,32 @@ class DriverServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        when(redisTemplate.boundGeoOps(anyString())).thenReturn(geoOperations);
+        geoProperties = new GeoProperties();
+        driverGridIndex = new DriverGridIndex(geoProperties);
+        locationWriteFilter = new LocationWriteFilter(geoProperties);
         
         driverService = new DriverServiceImpl(
             driverRepository,
-            userClient,
+            new UserProfileCache(userClient, new UserProfileProperties()),
             kafkaTemplate,
-            redisTemplate
+            driverLocationRepository,
+            geoProperties,
+            driverGridIndex,
+            driverLogShipper,
+            driverStatusRepository,
+            locationWriteFilter,
+            locationHistoryWriter,
+            tripReservationRepository,
+            new NearbyResultCache(geoProperties),
+            heatmapRecorder
         );
 
         // Setup test data
         testDriver = new Driver();
         testDriver.setId("1");
         testDriver.setDriverId("driver123");
-        testDriver.setLatitude("10.762622");
-        testDriver.setLongitude("106.660172");
+        testDriver.setLatitude(10.762622);
+        testDriver.setLongitude(106.660172);
         testDriver.setDetailLocation("Ho Chi Minh City");
         testDriver.setStatus(Status.OFF);
 
@@ -77,15 +127,16 @@ class DriverServiceImplTest {
         testUserDTO.setEmail("john.doe@example.com");
 
         testLocationRequest = new DriverLocationRequest();
-        testLocationRequest.setLatitude("10.762622");
-        testLocationRequest.setLongitude("106.660172");
+        testLocationRequest.setLatitude(10.762622);
+        testLocationRequest.setLongitude(106.660172);
         testLocationRequest.setDetailLocation("Ho Chi Minh City");
     }
 
     @Test
-    void getDriverLocation_WhenDriverExists_ShouldReturnDriverLocationResponse() throws Exception {
+    void getDriverLocation_WhenDriverExists_ShouldReturnLivePositionFromGeoIndex() throws Exception {
         // Arrange
-        when(driverRepository.findByDriverId("driver123")).thenReturn(testDriver);
+        when(driverRepository.findProfileByDriverId("driver123")).thenReturn(testDriver);
+        when(driverLocationRepository.positions(List.of("driver123"))).thenReturn(List.of(new Point(106.7, 10.8)));
         when(userClient.getUserInfo()).thenReturn(testUserDTO);
 
         // Act
@@ -94,19 +145,61 @@ class DriverServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals("driver123", result.getDriverId());
-        assertEquals("10.762622", result.getLatitude());
-        assertEquals("106.660172", result.getLongitude());
+        assertEquals(10.8, result.getLatitude());
+        assertEquals(106.7, result.getLongitude());
         assertEquals("Ho Chi Minh City", result.getDetailLocation());
         assertEquals("John Doe", result.getDriverName());
 
-        verify(driverRepository).findByDriverId("driver123");
+        verify(driverRepository).findProfileByDriverId("driver123");
+        verifyNoMoreInteractions(driverRepository);
         verify(userClient).getUserInfo();
     }
 
+    @Test
+    void getDriverLocation_WithMemoryEngine_ShouldServeFromGridWithoutRedis() throws Exception {
+        // Arrange
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        driverGridIndex.update("driver123", 10.8, 106.7);
+        when(driverRepository.findProfileByDriverId("driver123")).thenReturn(testDriver);
+        when(userClient.getUserInfo()).thenReturn(testUserDTO);
+
+        // Act
+        DriverLocationResponse result = driverService.getDriverLocation("driver123");
+
+        // Assert
+        assertEquals(10.8, result.getLatitude());
+        assertEquals(106.7, result.getLongitude());
+        verify(driverLocationRepository, never()).positions(anyList());
+    }
+
+    @Test
+    void getDriverLocations_ShouldReturnKnownDriversInRequestOrder() {
+        // Arrange
+        Driver other = new Driver();
+        other.setDriverId("driver456");
+        when(driverRepository.findProfilesByDriverIdIn(List.of("driver456", "unknown", "driver123")))
+            .thenReturn(List.of(testDriver, other));
+        when(driverLocationRepository.positions(List.of("driver456", "driver123")))
+            .thenReturn(Arrays.asList(null, new Point(106.7, 10.8)));
+
+        // Act
+        List<DriverLocationResponse> result = driverService.getDriverLocations(
+            List.of("driver456", "unknown", "driver123", "driver456"));
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("driver456", result.get(0).getDriverId());
+        assertNull(result.get(0).getLatitude());
+        assertEquals("driver123", result.get(1).getDriverId());
+        assertEquals(10.8, result.get(1).getLatitude());
+        assertEquals("Ho Chi Minh City", result.get(1).getDetailLocation());
+        verify(userClient, never()).getUserInfo();
+    }
+
     @Test
     void getDriverLocation_WhenDriverNotFound_ShouldThrowException() {
         // Arrange
-        when(driverRepository.findByDriverId("nonexistent")).thenReturn(null);
+        when(driverRepository.findProfileByDriverId("nonexistent")).thenReturn(null);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -114,7 +207,7 @@ class DriverServiceImplTest {
         });
 
         assertEquals("Driver not found", exception.getMessage());
-        verify(driverRepository).findByDriverId("nonexistent");
+        verify(driverRepository).findProfileByDriverId("nonexistent");
         verify(userClient, never()).getUserInfo();
     }
 
@@ -130,10 +223,11 @@ class DriverServiceImplTest {
         // Assert
         assertEquals("Successfully updated location for driver driver123", result);
         
-        verify(geoOperations).add(pointCaptor.capture(), eq(driverId));
+        verify(driverLocationRepository).save(eq(driverId), pointCaptor.capture());
         Point capturedPoint = pointCaptor.getValue();
         assertEquals(106.660172, capturedPoint.getX(), 0.000001);
         assertEquals(10.762622, capturedPoint.getY(), 0.000001);
+        verify(heatmapRecorder).move(Map.of(driverId, capturedPoint));
     }
 
     @Test
@@ -144,30 +238,29 @@ class DriverServiceImplTest {
         });
 
         assertEquals("Driver not found", exception.getMessage());
-        verify(geoOperations, never()).add(any(), any());
+        verify(driverLocationRepository, never()).save(any(), any());
     }
 
     @Test
     void turnOnDriver_WhenDriverExists_ShouldUpdateStatusToOn() throws Exception {
         // Arrange
-        when(driverRepository.findByDriverId("driver123")).thenReturn(testDriver);
-        when(driverRepository.save(any(Driver.class))).thenReturn(testDriver);
+        when(driverRepository.updateStatus("driver123", Status.ON)).thenReturn(true);
 
         // Act
         String result = driverService.turnOnDriver("driver123");
 
         // Assert
         assertEquals("Driver is now available", result);
-        assertEquals(Status.ON, testDriver.getStatus());
         
-        verify(driverRepository).findByDriverId("driver123");
-        verify(driverRepository).save(testDriver);
+        verify(driverRepository).updateStatus("driver123", Status.ON);
+        verify(driverStatusRepository).setStatus("driver123", Status.ON);
+        verifyNoMoreInteractions(driverRepository);
     }
 
     @Test
     void turnOnDriver_WhenDriverNotFound_ShouldThrowException() {
         // Arrange
-        when(driverRepository.findByDriverId("nonexistent")).thenReturn(null);
+        when(driverRepository.updateStatus("nonexistent", Status.ON)).thenReturn(false);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -175,32 +268,44 @@ class DriverServiceImplTest {
         });
 
         assertEquals("Driver not found", exception.getMessage());
-        verify(driverRepository).findByDriverId("nonexistent");
-        verify(driverRepository, never()).save(any());
+        verify(driverRepository).updateStatus("nonexistent", Status.ON);
+        verify(driverStatusRepository, never()).setStatus(any(), any());
+    }
+
+    @Test
+    void turnOnDriver_WhenDriverIsAlreadyOn_ShouldNotTouchRedis() throws Exception {
+        // Arrange
+        when(driverRepository.updateStatus("driver123", Status.ON)).thenReturn(false);
+        when(driverRepository.existsByDriverId("driver123")).thenReturn(true);
+
+        // Act
+        String result = driverService.turnOnDriver("driver123");
+
+        // Assert
+        assertEquals("Driver is now available", result);
+        verifyNoInteractions(driverStatusRepository, driverLocationRepository);
     }
 
     @Test
     void turnOffDriver_WhenDriverExists_ShouldUpdateStatusToOff() throws Exception {
         // Arrange
-        testDriver.setStatus(Status.ON); // Start with ON status
-        when(driverRepository.findByDriverId("driver123")).thenReturn(testDriver);
-        when(driverRepository.save(any(Driver.class))).thenReturn(testDriver);
+        when(driverRepository.updateStatus("driver123", Status.OFF)).thenReturn(true);
 
         // Act
         String result = driverService.turnOffDriver("driver123");
 
         // Assert
         assertEquals("Driver is now available", result);
-        assertEquals(Status.OFF, testDriver.getStatus());
         
-        verify(driverRepository).findByDriverId("driver123");
-        verify(driverRepository).save(testDriver);
+        verify(driverRepository).updateStatus("driver123", Status.OFF);
+        verify(driverStatusRepository).setStatus("driver123", Status.OFF);
+        verify(driverRepository, never()).save(any());
     }
 
     @Test
     void turnOffDriver_WhenDriverNotFound_ShouldThrowException() {
         // Arrange
-        when(driverRepository.findByDriverId("nonexistent")).thenReturn(null);
+        when(driverRepository.updateStatus("nonexistent", Status.OFF)).thenReturn(false);
 
         // Act & Assert
         Exception exception = assertThrows(Exception.class, () -> {
@@ -208,8 +313,21 @@ class DriverServiceImplTest {
         });
 
         assertEquals("Driver not found", exception.getMessage());
-        verify(driverRepository).findByDriverId("nonexistent");
-        verify(driverRepository, never()).save(any());
+        verify(driverRepository).updateStatus("nonexistent", Status.OFF);
+        verify(driverStatusRepository, never()).setStatus(any(), any());
+    }
+
+    @Test
+    void turnOffDriver_WhenDriverIsAlreadyOff_ShouldNotParkItAgain() throws Exception {
+        // Arrange
+        when(driverRepository.updateStatus("driver123", Status.OFF)).thenReturn(false);
+        when(driverRepository.existsByDriverId("driver123")).thenReturn(true);
+
+        // Act
+        driverService.turnOffDriver("driver123");
+
+        // Assert
+        verifyNoInteractions(driverStatusRepository, driverLocationRepository);
     }
 
     @Test
@@ -235,7 +353,7 @@ class DriverServiceImplTest {
         GeoResults<RedisGeoCommands.GeoLocation<String>> mockGeoResults = 
             new GeoResults<>(geoResultList);
 
-        when(geoOperations.radius(any(Circle.class))).thenReturn(mockGeoResults);
+        when(driverLocationRepository.radius(any(Circle.class))).thenReturn(mockGeoResults);
 
         // Act
         GeoResults<String> result = driverService.findDriversNearby(latitude, longitude, radius);
@@ -251,7 +369,7 @@ class DriverServiceImplTest {
         assertEquals(2.0, content.get(1).getDistance().getValue());
 
         ArgumentCaptor<Circle> circleCaptor = ArgumentCaptor.forClass(Circle.class);
-        verify(geoOperations).radius(circleCaptor.capture());
+        verify(driverLocationRepository).radius(circleCaptor.capture());
         
         Circle capturedCircle = circleCaptor.getValue();
         assertEquals(longitude, capturedCircle.getCenter().getX(), 0.000001);
@@ -270,7 +388,7 @@ class DriverServiceImplTest {
         GeoResults<RedisGeoCommands.GeoLocation<String>> emptyGeoResults = 
             new GeoResults<>(Arrays.asList());
 
-        when(geoOperations.radius(any(Circle.class))).thenReturn(emptyGeoResults);
+        when(driverLocationRepository.radius(any(Circle.class))).thenReturn(emptyGeoResults);
 
         // Act
         GeoResults<String> result = driverService.findDriversNearby(latitude, longitude, radius);
@@ -279,29 +397,31 @@ class DriverServiceImplTest {
         assertNotNull(result);
         assertTrue(result.getContent().isEmpty());
         
-        verify(geoOperations).radius(any(Circle.class));
+        verify(driverLocationRepository).radius(any(Circle.class));
     }
 
     @Test
-    void updateDriverLocation_WithInvalidCoordinates_ShouldThrowNumberFormatException() {
+    void updateDriverLocation_WithOutOfRangeCoordinates_ShouldThrowException() {
         // Arrange
         DriverLocationRequest invalidRequest = new DriverLocationRequest();
-        invalidRequest.setLatitude("invalid_latitude");
-        invalidRequest.setLongitude("106.660172");
+        invalidRequest.setLatitude(95.0);
+        invalidRequest.setLongitude(106.660172);
         invalidRequest.setDetailLocation("Ho Chi Minh City");
 
         // Act & Assert
-        assertThrows(NumberFormatException.class, () -> {
+        Exception exception = assertThrows(Exception.class, () -> {
             driverService.updateDriverLocation(invalidRequest, "driver123");
         });
 
-        verify(geoOperations, never()).add(any(), any());
+        assertEquals("Invalid coordinates", exception.getMessage());
+        verify(driverLocationRepository, never()).save(any(), any());
     }
 
     @Test
     void getDriverLocation_WhenUserClientFails_ShouldPropagateException() throws Exception {
         // Arrange
-        when(driverRepository.findByDriverId("driver123")).thenReturn(testDriver);
+        when(driverRepository.findProfileByDriverId("driver123")).thenReturn(testDriver);
+        when(driverLocationRepository.positions(List.of("driver123"))).thenReturn(Arrays.asList((Point) null));
         when(userClient.getUserInfo()).thenThrow(new RuntimeException("User service unavailable"));
 
         // Act & Assert
@@ -309,32 +429,10 @@ class DriverServiceImplTest {
             driverService.getDriverLocation("driver123");
         });
 
-        verify(driverRepository).findByDriverId("driver123");
+        verify(driverRepository).findProfileByDriverId("driver123");
         verify(userClient).getUserInfo();
     }
 
-    @Test
-    void constructor_ShouldInitializeGeoOperations() {
-        // Arrange
-        @SuppressWarnings("unchecked")
-        RedisTemplate<String, String> newRedisTemplate = mock(RedisTemplate.class);
-        @SuppressWarnings("unchecked")
-        BoundGeoOperations<String, String> newGeoOps = mock(BoundGeoOperations.class);
-        when(newRedisTemplate.boundGeoOps(anyString())).thenReturn(newGeoOps);
-        
-        // Act
-        DriverServiceImpl service = new DriverServiceImpl(
-            driverRepository,
-            userClient,
-            kafkaTemplate,
-            newRedisTemplate
-        );
-
-        // Assert
-        verify(newRedisTemplate).boundGeoOps("active_drivers");
-        assertNotNull(service);
-    }
-
     @Test
     void acceptTrip_ShouldLogAndPublishEvent() throws Exception {
         // Arrange
@@ -342,6 +440,8 @@ class DriverServiceImplTest {
         String tripId = "trip456";
         ArgumentCaptor<String> topicCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        when(tripReservationRepository.reserve(tripId, driverId)).thenReturn(TripReservationRepository.Reservation.RESERVED);
+        when(kafkaTemplate.send(eq("trip_created"), anyString())).thenReturn(CompletableFuture.completedFuture(null));
 
         // Act
         String result = driverService.acceptTrip(driverId, tripId);
@@ -367,7 +467,479 @@ class DriverServiceImplTest {
         assertTrue(tripCreatedMessage.contains("\"driverId\":\"driver123\""));
         assertTrue(tripCreatedMessage.contains("\"tripId\":\"trip456\""));
 
-        // Verify driver-logs were sent twice (start and success)
-        verify(kafkaTemplate, times(2)).send(eq("driver-logs"), anyString());
+        // Logs go through the async shipper (start, event and success), never straight to Kafka
+        verify(driverLogShipper, times(2)).debug(anyString());
+        verify(driverLogShipper).info(anyString());
+        verify(kafkaTemplate, never()).send(eq("driver-logs"), anyString());
+        verify(tripReservationRepository).reserve(tripId, driverId);
+        verifyNoMoreInteractions(tripReservationRepository);
+    }
+
+    @Test
+    void acceptTrip_WhenPublishFails_ShouldReleaseTheTrip() {
+        // Arrange
+        when(tripReservationRepository.reserve("trip456", "driver123")).thenReturn(TripReservationRepository.Reservation.RESERVED);
+        when(kafkaTemplate.send(eq("trip_created"), anyString()))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Broker down")));
+
+        // Act
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> driverService.acceptTrip("driver123", "trip456"));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verify(tripReservationRepository).release("trip456", "driver123");
+        verify(driverLogShipper).error(contains("Broker down"));
+    }
+
+    @Test
+    void acceptTrip_WhenTripAlreadyReserved_ShouldRejectWithoutPublishing() {
+        // Arrange
+        when(tripReservationRepository.reserve("trip456", "driver123")).thenReturn(TripReservationRepository.Reservation.TAKEN);
+
+        // Act
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> driverService.acceptTrip("driver123", "trip456"));
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateDriverLocations_ShouldWriteValidUpdatesInOneGeoAdd() {
+        // Arrange
+        BulkDriverLocationRequest request = new BulkDriverLocationRequest();
+        request.setLocations(List.of(
+            locationUpdate("driver1", 10.762622, 106.660172),
+            locationUpdate("driver2", Double.NaN, 106.660172),
+            locationUpdate(null, 10.762622, 106.660172),
+            locationUpdate("driver3", 95.0, 106.660172),
+            locationUpdate("driver1", 10.772622, 106.670172)
+        ));
+        ArgumentCaptor<Map<String, Point>> pointsCaptor = ArgumentCaptor.forClass(Map.class);
+        when(driverStatusRepository.getStatuses(List.of("driver1", "driver1")))
+            .thenReturn(Arrays.asList(null, Status.ON));
+
+        // Act
+        BulkDriverLocationResponse result = driverService.updateDriverLocations(request);
+
+        // Assert
+        assertEquals(2, result.getAccepted());
+        assertEquals(3, result.getRejected());
+        assertEquals(5, result.getResults().size());
+        assertTrue(result.getResults().get(0).isSuccess());
+        assertEquals("Invalid coordinates", result.getResults().get(1).getMessage());
+        assertEquals("Driver not found", result.getResults().get(2).getMessage());
+        assertEquals("Invalid coordinates", result.getResults().get(3).getMessage());
+
+        verify(driverLocationRepository, times(1)).saveAll(pointsCaptor.capture());
+        Map<String, Point> points = pointsCaptor.getValue();
+        assertEquals(1, points.size());
+        assertEquals(106.670172, points.get("driver1").getX(), 0.000001);
+        assertEquals(10.772622, points.get("driver1").getY(), 0.000001);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateDriverLocations_WhenNothingValid_ShouldNotCallRedis() {
+        // Arrange
+        BulkDriverLocationRequest request = new BulkDriverLocationRequest();
+        request.setLocations(List.of(locationUpdate("driver1", Double.NaN, 106.660172)));
+
+        // Act
+        BulkDriverLocationResponse result = driverService.updateDriverLocations(request);
+
+        // Assert
+        assertEquals(0, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        verify(driverLocationRepository, never()).saveAll(any(Map.class));
+        verify(driverStatusRepository, never()).getStatuses(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateDriverLocations_ShouldRejectOfflineDrivers() {
+        // Arrange
+        BulkDriverLocationRequest request = new BulkDriverLocationRequest();
+        request.setLocations(List.of(
+            locationUpdate("driver1", 10.762622, 106.660172),
+            locationUpdate("driver2", 10.762622, 106.660172)
+        ));
+        when(driverStatusRepository.getStatuses(List.of("driver1", "driver2")))
+            .thenReturn(Arrays.asList(Status.OFF, Status.ON));
+        ArgumentCaptor<Map<String, Point>> pointsCaptor = ArgumentCaptor.forClass(Map.class);
+
+        // Act
+        BulkDriverLocationResponse result = driverService.updateDriverLocations(request);
+
+        // Assert
+        assertEquals(1, result.getAccepted());
+        assertEquals("Driver is offline", result.getResults().get(0).getMessage());
+        verify(driverLocationRepository).saveAll(pointsCaptor.capture());
+        assertEquals(List.of("driver2"), List.copyOf(pointsCaptor.getValue().keySet()));
+    }
+
+    @Test
+    void updateDriverLocation_WhenDriverIsOff_ShouldDropPing() throws Exception {
+        // Arrange
+        when(driverStatusRepository.getStatus("driver123")).thenReturn(Status.OFF);
+
+        // Act
+        String result = driverService.updateDriverLocation(testLocationRequest, "driver123");
+
+        // Assert
+        assertEquals("Driver driver123 is offline, location ignored", result);
+        verify(driverLocationRepository, never()).save(anyString(), any(Point.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateDriverStatuses_ShouldApplyAllChangesInOneBulkWriteAndOnePipeline() {
+        // Arrange
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        driverGridIndex.update("driver2", 10.76, 106.66);
+        BulkDriverStatusRequest request = new BulkDriverStatusRequest();
+        request.setDrivers(List.of(
+            statusUpdate("driver1", Status.ON),
+            statusUpdate("driver2", Status.OFF),
+            statusUpdate("unknown", Status.ON),
+            statusUpdate("driver3", null),
+            statusUpdate(null, Status.OFF)
+        ));
+        when(driverRepository.updateStatuses(Map.of("driver1", Status.ON, "driver2", Status.OFF, "unknown", Status.ON)))
+            .thenReturn(Set.of("driver1", "driver2"));
+        when(driverLocationRepository.updateMembership(Map.of("driver1", Status.ON, "driver2", Status.OFF)))
+            .thenReturn(Set.of("driver1"));
+        when(driverLocationRepository.positions(List.of("driver1"))).thenReturn(List.of(new Point(106.7, 10.8)));
+
+        // Act
+        BulkDriverStatusResponse result = driverService.updateDriverStatuses(request);
+
+        // Assert
+        assertEquals(2, result.getAccepted());
+        assertEquals(3, result.getRejected());
+        assertEquals("Driver is now available", result.getResults().get(0).getMessage());
+        assertEquals("Driver is now unavailable", result.getResults().get(1).getMessage());
+        assertEquals("Driver not found", result.getResults().get(2).getMessage());
+        assertEquals("Invalid status", result.getResults().get(3).getMessage());
+        assertFalse(result.getResults().get(4).isSuccess());
+
+        verify(driverStatusRepository).setStatuses(Map.of("driver1", Status.ON, "driver2", Status.OFF));
+        verify(driverRepository, never()).updateStatus(anyString(), any());
+        verify(driverLocationRepository, never()).park(anyString());
+        assertEquals(new Point(106.7, 10.8), driverGridIndex.position("driver1"));
+        assertNull(driverGridIndex.position("driver2"));
+        verify(heatmapRecorder).remove(List.of("driver2"));
+        verify(heatmapRecorder).move(Map.of("driver1", new Point(106.7, 10.8)));
+    }
+
+    @Test
+    void updateDriverStatuses_WhenNoDriverMatches_ShouldNotTouchRedis() {
+        // Arrange
+        BulkDriverStatusRequest request = new BulkDriverStatusRequest();
+        request.setDrivers(List.of(statusUpdate("unknown", Status.OFF)));
+        when(driverRepository.updateStatuses(Map.of("unknown", Status.OFF))).thenReturn(Set.of());
+
+        // Act
+        BulkDriverStatusResponse result = driverService.updateDriverStatuses(request);
+
+        // Assert
+        assertEquals(0, result.getAccepted());
+        assertEquals("Driver not found", result.getResults().get(0).getMessage());
+        verifyNoInteractions(driverStatusRepository, driverLocationRepository);
+    }
+
+    @Test
+    void turnOffDriver_ShouldMoveDriverFromActiveToOfflineSet() throws Exception {
+        // Arrange
+        when(driverRepository.updateStatus("driver123", Status.OFF)).thenReturn(true);
+
+        // Act
+        driverService.turnOffDriver("driver123");
+
+        // Assert
+        verify(driverLocationRepository).park("driver123");
+        verify(driverLocationRepository, never()).restore(any());
+    }
+
+    @Test
+    void turnOnDriver_WithHeatmapEnabled_ShouldCountDriverAtParkedPosition() throws Exception {
+        // Arrange
+        when(driverRepository.updateStatus("driver123", Status.ON)).thenReturn(true);
+        when(driverLocationRepository.restore("driver123")).thenReturn(true);
+        when(heatmapRecorder.isEnabled()).thenReturn(true);
+        when(driverLocationRepository.position("driver123")).thenReturn(new Point(106.66, 10.76));
+
+        // Act
+        driverService.turnOnDriver("driver123");
+
+        // Assert
+        verify(heatmapRecorder).move(Map.of("driver123", new Point(106.66, 10.76)));
+        assertNull(driverGridIndex.position("driver123"));
+    }
+
+    @Test
+    void turnOnDriver_ShouldRestoreDriverFromOfflineSet() throws Exception {
+        // Arrange
+        when(driverRepository.updateStatus("driver123", Status.ON)).thenReturn(true);
+
+        // Act
+        driverService.turnOnDriver("driver123");
+
+        // Assert
+        verify(driverLocationRepository).restore("driver123");
+        verify(driverLocationRepository, never()).park(any());
+    }
+
+    @Test
+    void findDriversNearby_WithMemoryEngine_ShouldAnswerFromGridWithoutRedis() throws Exception {
+        // Arrange
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        driverService.updateDriverLocation(testLocationRequest, "driver123");
+        DriverLocationRequest farAway = new DriverLocationRequest();
+        farAway.setLatitude(21.028511);
+        farAway.setLongitude(105.804817);
+        driverService.updateDriverLocation(farAway, "driver456");
+
+        // Act
+        GeoResults<String> result = driverService.findDriversNearby(10.763, 106.661, 5.0);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertEquals("driver123", result.getContent().get(0).getContent());
+        verify(driverLocationRepository, times(2)).save(anyString(), any(Point.class));
+        verify(driverLocationRepository, never()).radius(any(Circle.class));
+    }
+
+    @Test
+    void findDriversNearby_WithMaxAge_ShouldDropDriversWithoutRecentPing() {
+        // Arrange
+        geoProperties.setMaxAgeSeconds(60);
+        GeoResults<RedisGeoCommands.GeoLocation<String>> geoResults = new GeoResults<>(List.of(
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("fresh", new Point(106.66, 10.76)),
+                new Distance(1.0, Metrics.KILOMETERS)),
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("stale", new Point(106.66, 10.76)),
+                new Distance(2.0, Metrics.KILOMETERS)),
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("unknown", new Point(106.66, 10.76)),
+                new Distance(3.0, Metrics.KILOMETERS))
+        ));
+        when(driverLocationRepository.radius(any(Circle.class))).thenReturn(geoResults);
+        double now = System.currentTimeMillis();
+        when(driverLocationRepository.lastSeen(List.of("fresh", "stale", "unknown")))
+            .thenReturn(Arrays.asList(now, now - 120_000, null));
+
+        // Act
+        GeoResults<String> result = driverService.findDriversNearby(10.76, 106.66, 5.0);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertEquals("fresh", result.getContent().get(0).getContent());
+    }
+
+    @Test
+    void findDriversNearby_ForSeveralCenters_ShouldShareOneRadiusPipelineAndOneLastSeenLookup() {
+        // Arrange
+        geoProperties.setMaxAgeSeconds(60);
+        GeoResults<RedisGeoCommands.GeoLocation<String>> first = new GeoResults<>(List.of(
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("shared", new Point(106.66, 10.76)),
+                new Distance(1.0, Metrics.KILOMETERS)),
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("stale", new Point(106.66, 10.76)),
+                new Distance(2.0, Metrics.KILOMETERS))
+        ));
+        GeoResults<RedisGeoCommands.GeoLocation<String>> second = new GeoResults<>(List.of(
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("shared", new Point(106.67, 10.77)),
+                new Distance(0.5, Metrics.KILOMETERS))
+        ));
+        when(driverLocationRepository.radiusAll(anyList())).thenReturn(List.of(first, second));
+        double now = System.currentTimeMillis();
+        when(driverLocationRepository.lastSeen(List.of("shared", "stale")))
+            .thenReturn(Arrays.asList(now, now - 120_000));
+
+        // Act
+        List<GeoResults<String>> result = driverService.findDriversNearby(
+            List.of(new Point(106.66, 10.76), new Point(106.67, 10.77)), 5.0);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(List.of("shared"), result.get(0).getContent().stream().map(GeoResult::getContent).toList());
+        assertEquals(List.of("shared"), result.get(1).getContent().stream().map(GeoResult::getContent).toList());
+        verify(driverLocationRepository, times(1)).radiusAll(anyList());
+        verify(driverLocationRepository, never()).radius(any(Circle.class));
+    }
+
+    @Test
+    void findDriversNearby_FromSameCell_ShouldReuseResultUntilADriverMovesNearby() {
+        // Arrange
+        GeoResults<RedisGeoCommands.GeoLocation<String>> geoResults = new GeoResults<>(List.of(
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("driver1", new Point(106.66, 10.76)),
+                new Distance(1.0, Metrics.KILOMETERS))
+        ));
+        when(driverLocationRepository.radius(any(Circle.class))).thenReturn(geoResults);
+
+        // Act
+        GeoResults<String> first = driverService.findDriversNearby(10.76201, 106.66001, 5.0);
+        GeoResults<String> second = driverService.findDriversNearby(10.76205, 106.66008, 5.0);
+        driverService.updateDriverLocation("driver2", 10.77, 106.67);
+        driverService.findDriversNearby(10.76205, 106.66008, 5.0);
+
+        // Assert
+        assertEquals("driver1", first.getContent().get(0).getContent());
+        assertSame(first, second);
+        verify(driverLocationRepository, times(2)).radius(any(Circle.class));
+    }
+
+    @Test
+    void findDriversNearby_AfterCachedDriverTurnsOff_ShouldSearchAgain() throws Exception {
+        // Arrange
+        GeoResults<RedisGeoCommands.GeoLocation<String>> geoResults = new GeoResults<>(List.of(
+            new GeoResult<>(new RedisGeoCommands.GeoLocation<>("driver1", new Point(106.66, 10.76)),
+                new Distance(1.0, Metrics.KILOMETERS))
+        ));
+        when(driverLocationRepository.radius(any(Circle.class))).thenReturn(geoResults);
+        when(driverRepository.updateStatus("driver1", Status.OFF)).thenReturn(true);
+
+        // Act
+        driverService.findDriversNearby(10.76201, 106.66001, 5.0);
+        driverService.turnOffDriver("driver1");
+        driverService.findDriversNearby(10.76201, 106.66001, 5.0);
+
+        // Assert
+        verify(driverLocationRepository, times(2)).radius(any(Circle.class));
+    }
+
+    @Test
+    void findNearestDrivers_ShouldWidenRadiusOnlyForCentersWithTooFewDrivers() {
+        // Arrange
+        Point downtown = new Point(106.70, 10.77);
+        Point suburb = new Point(106.40, 10.90);
+        when(driverLocationRepository.searchNearest(List.of(downtown, suburb), 1.0, 2)).thenReturn(List.of(
+            geoResults("driver1", "driver2"), geoResults()));
+        when(driverLocationRepository.searchNearest(List.of(suburb), 2.0, 2)).thenReturn(List.of(geoResults("driver3")));
+        when(driverLocationRepository.searchNearest(List.of(suburb), 4.0, 2)).thenReturn(List.of(geoResults("driver3", "driver4")));
+
+        // Act
+        List<GeoResults<String>> result = driverService.findNearestDrivers(List.of(downtown, suburb), 2);
+
+        // Assert
+        assertEquals(List.of("driver1", "driver2"), result.get(0).getContent().stream().map(GeoResult::getContent).toList());
+        assertEquals(List.of("driver3", "driver4"), result.get(1).getContent().stream().map(GeoResult::getContent).toList());
+        verify(driverLocationRepository, times(3)).searchNearest(anyList(), anyDouble(), eq(2));
+    }
+
+    @Test
+    void findNearestDrivers_ShouldStopAtMaxRadius() {
+        // Arrange
+        geoProperties.setNearestMaxRadiusKm(3.0);
+        when(driverLocationRepository.searchNearest(anyList(), anyDouble(), eq(5))).thenReturn(List.of(geoResults("driver1")));
+
+        // Act
+        GeoResults<String> result = driverService.findNearestDrivers(10.76, 106.66, 5);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        verify(driverLocationRepository).searchNearest(anyList(), eq(1.0), eq(5));
+        verify(driverLocationRepository).searchNearest(anyList(), eq(2.0), eq(5));
+        verify(driverLocationRepository).searchNearest(anyList(), eq(3.0), eq(5));
+        verifyNoMoreInteractions(driverLocationRepository);
+    }
+
+    @Test
+    void findNearestDrivers_WithMemoryEngine_ShouldReturnClosestFirstUpToCount() {
+        // Arrange
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        driverGridIndex.update("far", 10.7660, 106.66);
+        driverGridIndex.update("near", 10.7610, 106.66);
+        driverGridIndex.update("nearest", 10.7601, 106.66);
+
+        // Act
+        GeoResults<String> result = driverService.findNearestDrivers(10.76, 106.66, 2);
+
+        // Assert
+        assertEquals(List.of("nearest", "near"), result.getContent().stream().map(GeoResult::getContent).toList());
+        verifyNoInteractions(driverLocationRepository);
+    }
+
+    @Test
+    void updateDriverLocation_WhenDriverBarelyMoved_ShouldSkipRedisWrite() throws Exception {
+        // Arrange
+        DriverLocationRequest nudge = new DriverLocationRequest();
+        nudge.setLatitude(10.762650);
+        nudge.setLongitude(106.660172);
+
+        // Act
+        driverService.updateDriverLocation(testLocationRequest, "driver123");
+        String result = driverService.updateDriverLocation(nudge, "driver123");
+
+        // Assert
+        assertEquals("Successfully updated location for driver driver123", result);
+        verify(driverLocationRepository, times(1)).save(eq("driver123"), any(Point.class));
+        verify(driverStatusRepository, times(1)).getStatus("driver123");
+        assertEquals(1, locationWriteFilter.getSkippedCount());
+        verify(locationHistoryWriter, times(1)).record(eq("driver123"), anyDouble(), anyDouble(), anyLong());
+    }
+
+    @Test
+    void updateDriverLocations_WhenDriverBarelyMovedAfterGoingOffElsewhere_ShouldNotTouchGridOrHistory() {
+        // Arrange
+        geoProperties.setEngine(GeoProperties.ENGINE_MEMORY);
+        when(driverStatusRepository.getStatuses(List.of("driver1"))).thenReturn(List.of(Status.ON));
+        BulkDriverLocationRequest first = new BulkDriverLocationRequest();
+        first.setLocations(List.of(locationUpdate("driver1", 10.762622, 106.660172)));
+        driverService.updateDriverLocations(first);
+        // Another replica turned the driver OFF and removed it from the geo index
+        driverGridIndex.remove("driver1");
+        BulkDriverLocationRequest nudge = new BulkDriverLocationRequest();
+        nudge.setLocations(List.of(locationUpdate("driver1", 10.762650, 106.660172)));
+
+        // Act
+        BulkDriverLocationResponse response = driverService.updateDriverLocations(nudge);
+
+        // Assert
+        assertEquals(1, response.getAccepted());
+        assertNull(driverGridIndex.position("driver1"));
+        verify(locationHistoryWriter, times(1)).record(eq("driver1"), anyDouble(), anyDouble(), anyLong());
+        verify(driverStatusRepository, times(1)).getStatuses(anyList());
+    }
+
+    @Test
+    void turnOffDriver_ShouldForgetLastWrittenPosition() throws Exception {
+        // Arrange
+        when(driverRepository.updateStatus("driver123", Status.OFF)).thenReturn(true);
+        when(driverRepository.updateStatus("driver123", Status.ON)).thenReturn(true);
+        driverService.updateDriverLocation(testLocationRequest, "driver123");
+
+        // Act
+        driverService.turnOffDriver("driver123");
+        driverService.turnOnDriver("driver123");
+        driverService.updateDriverLocation(testLocationRequest, "driver123");
+
+        // Assert
+        verify(driverLocationRepository, times(2)).save(eq("driver123"), any(Point.class));
+    }
+
+    private GeoResults<RedisGeoCommands.GeoLocation<String>> geoResults(String... driverIds) {
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> results = new ArrayList<>();
+        for (int i = 0; i < driverIds.length; i++) {
+            results.add(new GeoResult<>(new RedisGeoCommands.GeoLocation<>(driverIds[i], new Point(106.66, 10.76)),
+                new Distance(i + 0.5, Metrics.KILOMETERS)));
+        }
+        return new GeoResults<>(results, Metrics.KILOMETERS);
+    }
+
+    private DriverStatusUpdate statusUpdate(String driverId, Status status) {
+        DriverStatusUpdate update = new DriverStatusUpdate();
+        update.setDriverId(driverId);
+        update.setStatus(status);
+        return update;
+    }
+
+    private DriverLocationUpdate locationUpdate(String driverId, double latitude, double longitude) {
+        DriverLocationUpdate update = new DriverLocationUpdate();
+        update.setDriverId(driverId);
+        update.setLatitude(latitude);
+        update.setLongitude(longitude);
+        return update;
     }
-}
\ No newline at end of file
+}
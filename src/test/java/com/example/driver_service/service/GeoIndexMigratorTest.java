@@ -0,0 +1,43 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GeoIndexMigratorTest {
+
+    private final DriverLocationRepository driverLocationRepository = mock(DriverLocationRepository.class);
+    private final DriverLogShipper driverLog = mock(DriverLogShipper.class);
+    private final GeoIndexMigrator migrator = new GeoIndexMigrator(driverLocationRepository, new GeoProperties(), driverLog);
+
+    @Test
+    void migrate_ShouldMoveLegacyDriversInSweepSizedBatches() {
+        // Arrange
+        when(driverLocationRepository.migrateUnsharded(500)).thenReturn(3);
+
+        // Act
+        int migrated = migrator.migrate();
+
+        // Assert
+        assertEquals(3, migrated);
+        verify(driverLog).info(contains("Moved 3 drivers"));
+    }
+
+    @Test
+    void migrate_WhenRedisFails_ShouldLogAndKeepStarting() {
+        // Arrange
+        when(driverLocationRepository.migrateUnsharded(anyInt())).thenThrow(new RuntimeException("Redis down"));
+
+        // Act
+        int migrated = migrator.migrate();
+
+        // Assert
+        assertEquals(0, migrated);
+        verify(driverLog).error(contains("Redis down"));
+    }
+}
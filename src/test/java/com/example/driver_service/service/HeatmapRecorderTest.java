@@ -0,0 +1,131 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.HeatmapProperties;
+import com.example.driver_service.repository.HeatmapRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Point;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HeatmapRecorderTest {
+
+    private final HeatmapRepository heatmapRepository = mock(HeatmapRepository.class);
+    private final HeatmapProperties heatmapProperties = new HeatmapProperties();
+    private HeatmapRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        heatmapProperties.setEnabled(true);
+        recorder = new HeatmapRecorder(heatmapRepository, heatmapProperties, mock(DriverLogShipper.class));
+    }
+
+    @Test
+    void move_ShouldNotTouchRedisUntilFlush() {
+        // Act
+        recorder.move(Map.of("driver1", new Point(10.40744, 57.64911)));
+
+        // Assert
+        verifyNoInteractions(heatmapRepository);
+        assertEquals(1, recorder.getPendingSize());
+    }
+
+    @Test
+    void flush_ShouldSendOnlyTheLatestStateOfEachDriver() {
+        // Arrange
+        recorder.move(Map.of("driver1", new Point(10.40744, 57.64911), "driver2", new Point(10.40744, 57.64911)));
+        recorder.move(Map.of("driver1", new Point(106.660172, 10.762622)));
+        recorder.remove(List.of("driver2"));
+
+        // Act
+        recorder.flush();
+
+        // Assert
+        verify(heatmapRepository).updateSupply(Map.of("driver1", "w3gv5p", "driver2", ""));
+        assertEquals(0, recorder.getPendingSize());
+    }
+
+    @Test
+    void flush_ShouldSumTripRequestsPerCell() {
+        // Arrange
+        recorder.recordTrips(List.of(new Point(10.40744, 57.64911), new Point(10.40750, 57.64915),
+            new Point(106.660172, 10.762622)));
+
+        // Act
+        recorder.flush();
+
+        // Assert
+        verify(heatmapRepository).recordTrips(Map.of("u4pruy", 2L, "w3gv5p", 1L));
+    }
+
+    @Test
+    void flush_WhenRedisFails_ShouldKeepTheUpdatesForTheNextFlush() {
+        // Arrange
+        recorder.move(Map.of("driver1", new Point(10.40744, 57.64911)));
+        recorder.recordTrips(List.of(new Point(10.40744, 57.64911)));
+        doThrow(new RuntimeException("Redis down")).doNothing().when(heatmapRepository).updateSupply(anyMap());
+        doThrow(new RuntimeException("Redis down")).doNothing().when(heatmapRepository).recordTrips(anyMap());
+
+        // Act
+        recorder.flush();
+        recorder.recordTrips(List.of(new Point(10.40744, 57.64911)));
+        recorder.flush();
+
+        // Assert
+        verify(heatmapRepository, times(2)).updateSupply(Map.of("driver1", "u4pruy"));
+        verify(heatmapRepository).recordTrips(Map.of("u4pruy", 2L));
+        assertEquals(2, recorder.getFailedCount());
+        assertEquals(0, recorder.getPendingSize());
+    }
+
+    @Test
+    void flush_ShouldRollTheDemandWindowOncePerBucket() {
+        // Arrange
+        when(heatmapRepository.currentBucket()).thenReturn(100L, 100L, 101L);
+
+        // Act
+        recorder.flush();
+        recorder.flush();
+        recorder.flush();
+
+        // Assert
+        verify(heatmapRepository).rollDemand(100);
+        verify(heatmapRepository).rollDemand(101);
+        verify(heatmapRepository, never()).snapshot(anyLong());
+    }
+
+    @Test
+    void flush_WhenRollFails_ShouldRetryOnTheNextFlush() {
+        // Arrange
+        when(heatmapRepository.currentBucket()).thenReturn(100L);
+        doThrow(new RuntimeException("Redis down")).doNothing().when(heatmapRepository).rollDemand(100);
+
+        // Act
+        recorder.flush();
+        recorder.flush();
+        recorder.flush();
+
+        // Assert
+        verify(heatmapRepository, times(2)).rollDemand(100);
+    }
+
+    @Test
+    void move_WhenDisabled_ShouldNotBufferAnything() {
+        // Arrange
+        heatmapProperties.setEnabled(false);
+
+        // Act
+        recorder.move(Map.of("driver1", new Point(10.40744, 57.64911)));
+        recorder.recordTrips(List.of(new Point(10.40744, 57.64911)));
+        recorder.flush();
+
+        // Assert
+        verifyNoInteractions(heatmapRepository);
+    }
+}
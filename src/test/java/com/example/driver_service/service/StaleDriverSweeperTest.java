@@ -0,0 +1,49 @@
+package com.example.driver_service.service;
+
+import com.example.driver_service.geo.DriverGridIndex;
+import com.example.driver_service.geo.LocationWriteFilter;
+import com.example.driver_service.geo.NearbyResultCache;
+import com.example.driver_service.logging.DriverLogShipper;
+import com.example.driver_service.properties.GeoProperties;
+import com.example.driver_service.repository.DriverLocationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StaleDriverSweeperTest {
+
+    private final DriverLocationRepository driverLocationRepository = mock(DriverLocationRepository.class);
+    private final DriverLogShipper driverLog = mock(DriverLogShipper.class);
+    private final HeatmapRecorder heatmapRecorder = mock(HeatmapRecorder.class);
+    private final NearbyResultCache nearbyResultCache = mock(NearbyResultCache.class);
+
+    @Test
+    void sweep_ShouldKeepDeletingBatchesUntilAPartialBatch() {
+        // Arrange
+        GeoProperties geoProperties = new GeoProperties();
+        geoProperties.setSweepBatchSize(2);
+        DriverGridIndex gridIndex = new DriverGridIndex(geoProperties);
+        gridIndex.update("driver1", 10.76, 106.66);
+        when(driverLocationRepository.removeStale(anyLong(), eq(2)))
+            .thenReturn(List.of("driver1", "driver2"))
+            .thenReturn(List.of("driver3"));
+        StaleDriverSweeper sweeper = new StaleDriverSweeper(driverLocationRepository, gridIndex, geoProperties, driverLog,
+            new LocationWriteFilter(geoProperties), heatmapRecorder, nearbyResultCache);
+
+        // Act
+        int removed = sweeper.sweep();
+
+        // Assert
+        assertEquals(3, removed);
+        assertEquals(0, gridIndex.size());
+        verify(driverLocationRepository, times(2)).removeStale(anyLong(), eq(2));
+        verify(heatmapRecorder).remove(List.of("driver1", "driver2"));
+        verify(heatmapRecorder).remove(List.of("driver3"));
+        verify(nearbyResultCache).onRemove(List.of("driver1", "driver2"));
+        verify(nearbyResultCache).onRemove(List.of("driver3"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.driver_service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DriverSessionTest {
+
+    private final WebSocketSession webSocketSession = mock(WebSocketSession.class);
+    private final TripOfferMetrics metrics = new TripOfferMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void enqueue_ShouldDropOldestOfferWhenQueueIsFull() throws Exception {
+        // Arrange
+        List<Runnable> pending = new ArrayList<>();
+        when(webSocketSession.isOpen()).thenReturn(true);
+        DriverSession session = new DriverSession("driver1", webSocketSession, 2, pending::add, metrics);
+
+        // Act
+        session.enqueue(new TextMessage("trip1"), System.nanoTime());
+        session.enqueue(new TextMessage("trip2"), System.nanoTime());
+        session.enqueue(new TextMessage("trip3"), System.nanoTime());
+        pending.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(1, pending.size());
+        assertEquals(1, metrics.getDropped());
+        assertEquals(2, metrics.getDelivered());
+        assertEquals(2, metrics.getLatency().count());
+        verify(webSocketSession, never()).sendMessage(new TextMessage("trip1"));
+        verify(webSocketSession).sendMessage(new TextMessage("trip2"));
+        verify(webSocketSession).sendMessage(new TextMessage("trip3"));
+        assertEquals(0, session.getPending());
+    }
+
+    @Test
+    void enqueue_ShouldCloseSessionWhenSendFails() throws Exception {
+        // Arrange
+        when(webSocketSession.isOpen()).thenReturn(true);
+        doThrow(new IOException("Broken pipe")).when(webSocketSession).sendMessage(any());
+        DriverSession session = new DriverSession("driver1", webSocketSession, 4, Runnable::run, metrics);
+
+        // Act
+        session.enqueue(new TextMessage("trip1"), System.nanoTime());
+
+        // Assert
+        assertEquals(1, metrics.getFailed());
+        assertEquals(0, metrics.getDelivered());
+        verify(webSocketSession).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.driver_service.websocket;
+
+import com.example.driver_service.request.BulkDriverLocationRequest;
+import com.example.driver_service.request.DriverLocationUpdate;
+import com.example.driver_service.service.DriverService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LocationStreamHandlerTest {
+
+    private final DriverService driverService = mock(DriverService.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private LocationStreamHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Principal principal = () -> "driver123";
+        when(session.getPrincipal()).thenReturn(principal);
+        when(session.getAttributes()).thenReturn(attributes);
+        handler = new LocationStreamHandler(driverService);
+        handler.afterConnectionEstablished(session);
+    }
+
+    @Test
+    void handleMessage_ShouldSendEveryRecordOfTheFrameInOneBulkUpdate() throws Exception {
+        // Arrange
+        ArgumentCaptor<BulkDriverLocationRequest> request = ArgumentCaptor.forClass(BulkDriverLocationRequest.class);
+
+        // Act
+        handler.handleMessage(session, frame(10.76, 106.66, 1_000, 10.77, 106.67, 2_000));
+
+        // Assert
+        verify(driverService, times(1)).updateDriverLocations(request.capture());
+        List<DriverLocationUpdate> locations = request.getValue().getLocations();
+        assertEquals(2, locations.size());
+        assertEquals("driver123", locations.get(0).getDriverId());
+        assertEquals(10.76, locations.get(0).getLatitude());
+        assertEquals(106.67, locations.get(1).getLongitude());
+        verify(driverService, never()).updateDriverLocation(anyString(), anyDouble(), anyDouble());
+        assertEquals(2, handler.getAcceptedCount());
+    }
+
+    @Test
+    void handleMessage_ShouldSkipOutOfOrderAndInvalidRecords() throws Exception {
+        // Arrange
+        handler.handleMessage(session, frame(10.76, 106.66, 2_000));
+
+        // Act
+        handler.handleMessage(session, frame(10.70, 106.60, 1_000, 95.0, 106.60, 3_000));
+
+        // Assert
+        verify(driverService, times(1)).updateDriverLocations(any(BulkDriverLocationRequest.class));
+        assertEquals(1, handler.getAcceptedCount());
+        assertEquals(1, handler.getOutOfOrderCount());
+        assertEquals(1, handler.getRejectedCount());
+    }
+
+    @Test
+    void handleMessage_WithTruncatedFrame_ShouldCloseSession() throws Exception {
+        // Act
+        handler.handleMessage(session, new BinaryMessage(new byte[10]));
+
+        // Assert
+        verify(session).close(argThat((CloseStatus status) -> status.getCode() == CloseStatus.BAD_DATA.getCode()));
+        verifyNoInteractions(driverService);
+    }
+
+    private BinaryMessage frame(double... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length / 3 * LocationStreamHandler.RECORD_BYTES);
+        for (int i = 0; i < values.length; i += 3) {
+            buffer.putDouble(values[i]).putDouble(values[i + 1]).putLong((long) values[i + 2]);
+        }
+        return new BinaryMessage(buffer.flip());
+    }
+}